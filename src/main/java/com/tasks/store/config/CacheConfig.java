@@ -0,0 +1,46 @@
+package com.tasks.store.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(StoreCacheProperties.class)
+public class CacheConfig {
+
+    public static final String ITEMS = "items";
+    public static final String STOCK = "stock";
+
+    @Bean
+    public CaffeineCacheManager caffeineCacheManager(StoreCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(ITEMS, Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getItemExpireAfterWrite())
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(STOCK, Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getStockStaleness())
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    /**
+     * Defers evictions to after commit, so a concurrent read cannot re-cache a value that is about to change.
+     */
+    @Bean
+    @Primary
+    public CacheManager cacheManager(CaffeineCacheManager caffeineCacheManager) {
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+
+}
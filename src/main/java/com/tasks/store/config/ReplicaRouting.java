@@ -0,0 +1,34 @@
+package com.tasks.store.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-call override of the replica routing: reads that must see the caller's own writes, e.g. right after a create,
+ * run with {@link #onPrimary} and use the primary even in read-only transactions.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Runs the action with every transaction it starts on the primary. Transactions already running keep their
+     * connection.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean required = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_REQUIRED.set(required);
+        }
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.tasks.store.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to an available replica, in turn, and everything else to the primary.
+ * A replica is unavailable until its first check, while its replication lag exceeds the limit or its last check or
+ * connection attempt failed; reads then fall back to the primary. Must be wrapped in a lazy connection proxy, so the connection is only
+ * taken once the transaction is known to be read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    /**
+     * Zero on the primary or a replica that has replayed everything it received, so an idle primary does not look
+     * like lag.
+     */
+    private static final String LAG_SQL = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Measures the lag of every replica and updates its availability.
+     */
+    @Scheduled(fixedDelayString = "${store.replicas.check-interval}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet lag = statement.executeQuery(LAG_SQL)) {
+                lag.next();
+                Duration replicaLag = Duration.ofMillis((long) (lag.getDouble(1) * 1000));
+                if (replicaLag.compareTo(maxLag) > 0) {
+                    replica.setAvailable(false, "lag " + replicaLag + " exceeds " + maxLag);
+                } else {
+                    replica.setAvailable(true, "lag " + replicaLag);
+                }
+            } catch (SQLException e) {
+                replica.setAvailable(false, "check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection route(ConnectionFactory connectionFactory) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReplicaRouting.isPrimaryRequired()) {
+            Replica replica = nextAvailableReplica();
+            if (replica != null) {
+                try {
+                    return connectionFactory.connect(replica.dataSource);
+                } catch (SQLException e) {
+                    replica.setAvailable(false, "connection failed: " + e.getMessage());
+                }
+            }
+        }
+        return connectionFactory.connect(primary);
+    }
+
+    private Replica nextAvailableReplica() {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private interface ConnectionFactory {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        // Checked once at startup by the scheduler, reads go to the primary until then
+        private volatile boolean available;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void setAvailable(boolean available, String reason) {
+            if (this.available != available) {
+                log.warn("Replica {} is {}: {}", name, available ? "available" : "unavailable", reason);
+            }
+            this.available = available;
+        }
+
+    }
+
+}
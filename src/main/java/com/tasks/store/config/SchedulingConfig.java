@@ -0,0 +1,13 @@
+package com.tasks.store.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({StoreRollupProperties.class, StoreIdempotencyProperties.class,
+        StoreSellCoalescingProperties.class, StoreStockEventsProperties.class,
+        StoreSalePartitionProperties.class, StoreReservationProperties.class})
+public class SchedulingConfig {
+}
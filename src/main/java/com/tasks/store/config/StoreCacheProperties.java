@@ -0,0 +1,21 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.cache")
+public class StoreCacheProperties {
+
+    private long maximumSize = 10_000;
+
+    private Duration itemExpireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * How long a stock level may be served from cache; sells do not invalidate it.
+     */
+    private Duration stockStaleness = Duration.ofSeconds(1);
+
+}
@@ -0,0 +1,32 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.idempotency")
+public class StoreIdempotencyProperties {
+
+    /**
+     * How long a stored result is replayed for its key.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Largest number of keys kept in the database; the ones closest to expiry are removed first.
+     */
+    private long maxKeys = 1_000_000;
+
+    /**
+     * Keys kept in memory, so retries reaching the same instance are answered without a database round trip.
+     */
+    private long localCacheSize = 10_000;
+
+    /**
+     * How often expired keys are removed.
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(5);
+
+}
@@ -0,0 +1,52 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "store.replicas")
+public class StoreReplicaProperties {
+
+    /**
+     * Whether read-only transactions are sent to the replicas instead of the primary {@code spring.datasource}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Read replicas of the primary, used in turn.
+     */
+    private List<Replica> dataSources = new ArrayList<>();
+
+    /**
+     * Largest replication lag at which a replica still serves reads.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * How often the lag and availability of the replicas are checked.
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /**
+     * How long a read waits for a replica connection before it falls back to the primary.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.reservations")
+public class StoreReservationProperties {
+
+    /**
+     * How long a hold can be confirmed before its stock is released.
+     */
+    private Duration holdTtl = Duration.ofMinutes(10);
+
+    /**
+     * Granularity of the timing wheel releasing expired holds; holds are released at most this late.
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * Slots of the timing wheel. Expiries more than this many ticks ahead wait in their slot for later turns.
+     */
+    private int wheelSize = 1024;
+
+    /**
+     * How often expired holds missing from the timing wheel, e.g. of other instances or from before a restart, are
+     * looked up by expiry and released.
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    /**
+     * Largest number of expired holds released in one transaction by the sweep.
+     */
+    private int sweepBatchSize = 1000;
+
+}
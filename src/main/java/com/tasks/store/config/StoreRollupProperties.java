@@ -0,0 +1,27 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.rollup")
+public class StoreRollupProperties {
+
+    /**
+     * How often sales recorded without rollups are caught up.
+     */
+    private Duration catchUpInterval = Duration.ofMinutes(1);
+
+    /**
+     * Sales rolled up per catch-up transaction.
+     */
+    private int catchUpBatchSize = 1000;
+
+    /**
+     * Largest number of buckets a single time-series query may span.
+     */
+    private int maxBuckets = 10_000;
+
+}
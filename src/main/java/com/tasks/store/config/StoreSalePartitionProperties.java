@@ -0,0 +1,44 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.sale-partitions")
+public class StoreSalePartitionProperties {
+
+    /**
+     * Monthly partitions created ahead of the current month, so sells never wait for a partition to be created.
+     */
+    private int premadeMonths = 3;
+
+    /**
+     * How long sales are kept. A partition is removed once all of its sales are older.
+     */
+    private Duration retention = Duration.ofDays(730);
+
+    /**
+     * Whether removed partitions are written to a gzipped CSV file in the archive directory and dropped. Otherwise they
+     * are only detached and stay in the database as standalone tables.
+     */
+    private boolean archive = true;
+
+    /**
+     * Directory of the archived partitions, one {@code <partition>.csv.gz} file each.
+     */
+    private Path archiveDir = Path.of("sale-archive");
+
+    /**
+     * How often partitions are created and removed.
+     */
+    private Duration maintenanceInterval = Duration.ofHours(1);
+
+    /**
+     * How long removing a partition waits for the sells holding the sale table, before it is retried on the next run.
+     */
+    private Duration lockTimeout = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,32 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.sell-coalescing")
+public class StoreSellCoalescingProperties {
+
+    /**
+     * Whether concurrent sells of the same item are applied together instead of one transaction each.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long the first sell of a batch waits for others to join it.
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Sells after which a batch is applied without waiting for the window to end.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * How long a caller waits for its batch to be applied before the sell fails; the batch may still commit later.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+}
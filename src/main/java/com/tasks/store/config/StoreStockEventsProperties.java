@@ -0,0 +1,39 @@
+package com.tasks.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "store.stock-events")
+public class StoreStockEventsProperties {
+
+    /**
+     * How often the outbox is read for changes committed by other instances. Changes committed by this instance are
+     * read right after their commit.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * Largest number of events read from the outbox at once.
+     */
+    private int pollBatchSize = 1000;
+
+    /**
+     * Changes of distinct items buffered for a subscriber that has not received them yet. A subscriber falling further
+     * behind is disconnected and has to subscribe again.
+     */
+    private int subscriberBufferSize = 256;
+
+    /**
+     * How long events stay in the outbox, long enough for every instance to read them.
+     */
+    private Duration retention = Duration.ofMinutes(10);
+
+    /**
+     * How often events past the retention are removed.
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(1);
+
+}
@@ -0,0 +1,47 @@
+package com.tasks.store.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tasks.store.model.CacheStatsDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store/cache")
+@Tag(name = "Store Management System")
+public class CacheController {
+
+    private final CaffeineCacheManager caffeineCacheManager;
+
+    @GetMapping("/stats")
+    @Operation(summary = "View hit, miss and eviction counts of the item caches",
+            responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics")})
+    public ResponseEntity<Map<String, CacheStatsDto>> getCacheStats() {
+        Map<String, CacheStatsDto> stats = new TreeMap<>();
+        for (String name : caffeineCacheManager.getCacheNames()) {
+            Cache<Object, Object> cache = ((CaffeineCache) caffeineCacheManager.getCache(name)).getNativeCache();
+            CacheStats cacheStats = cache.stats();
+            CacheStatsDto dto = new CacheStatsDto();
+            dto.setHitCount(cacheStats.hitCount());
+            dto.setMissCount(cacheStats.missCount());
+            dto.setEvictionCount(cacheStats.evictionCount());
+            dto.setSize(cache.estimatedSize());
+            stats.put(name, dto);
+        }
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+}
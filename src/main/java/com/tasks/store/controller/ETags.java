@@ -0,0 +1,49 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.ItemVersionDto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Entity tags derived from item versions.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String ofVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Tag of a page of items, changing when any item on the page changes, leaves or joins it, or the total changes.
+     */
+    static String ofPage(long totalElements, List<ItemVersionDto> items) {
+        StringBuilder content = new StringBuilder().append(totalElements);
+        items.forEach(item -> content.append(';').append(item.getId()).append(':').append(item.getVersion()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Weak comparison of an {@code If-None-Match} header, a list of tags or {@code *}, with the current tag.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.ExportFormat;
+import com.tasks.store.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store/export")
+@Tag(name = "Store Management System")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/items")
+    @Operation(summary = "Stream the whole item catalog",
+            responses = {@ApiResponse(responseCode = "200", description = "Items are being streamed")})
+    public ResponseEntity<StreamingResponseBody> exportItems(
+            @Parameter(description = "NDJSON or CSV") @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(out -> exportService.exportItems(format, out));
+    }
+
+    @GetMapping("/sales")
+    @Operation(summary = "Stream sell operations of all items or of a single item, optionally within a time range",
+            responses = {@ApiResponse(responseCode = "200", description = "Sales are being streamed")})
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @Parameter(description = "Item Id to export sales for, all items if omitted")
+            @RequestParam(required = false) UUID itemId,
+            @Parameter(description = "Inclusive lower bound of the sale time, ISO-8601")
+            @RequestParam(required = false) Instant from,
+            @Parameter(description = "Exclusive upper bound of the sale time, ISO-8601")
+            @RequestParam(required = false) Instant to,
+            @Parameter(description = "NDJSON or CSV") @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(out -> exportService.exportSales(itemId, from, to, format, out));
+    }
+
+}
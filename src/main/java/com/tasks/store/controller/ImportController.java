@@ -0,0 +1,49 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.ImportReportDto;
+import com.tasks.store.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store/import")
+@Tag(name = "Store Management System")
+public class ImportController {
+
+    private final ImportService importService;
+
+    @PostMapping(value = "/items", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Upsert items by name from a JSON array",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, failed rows are reported"),
+                    @ApiResponse(responseCode = "400", description = "The body is not a JSON array")
+            })
+    public ResponseEntity<ImportReportDto> importJson(InputStream body) throws IOException {
+        return new ResponseEntity<>(importService.importJson(body), HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/items", consumes = "text/csv")
+    @Operation(summary = "Upsert items by name from a CSV file with name, price and quantity columns",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, failed rows are reported"),
+                    @ApiResponse(responseCode = "400", description = "The CSV header is missing a column")
+            })
+    public ResponseEntity<ImportReportDto> importCsv(InputStream body) throws IOException {
+        return new ResponseEntity<>(importService.importCsv(body), HttpStatus.OK);
+    }
+
+}
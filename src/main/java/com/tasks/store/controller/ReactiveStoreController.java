@@ -0,0 +1,167 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.SaleDto;
+import com.tasks.store.service.ReactiveStoreService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * WebFlux counterpart of {@link StoreController}, serving the same routes and payloads with the {@code reactive}
+ * profile. Errors are mapped by the shared {@link StoreExceptionHandler}.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store")
+@Tag(name = "Store Management System")
+@Validated
+public class ReactiveStoreController {
+
+    private final ReactiveStoreService storeService;
+
+    @PostMapping("/item")
+    @Operation(summary = "Add a new item in the store",
+            responses = {@ApiResponse(responseCode = "201", description = "Item successfully created")})
+    public Mono<ResponseEntity<ItemDto>> addItem(@Valid @RequestBody CreateItemDto createItemDto) {
+        return storeService.addItem(createItemDto).map(item -> new ResponseEntity<>(item, HttpStatus.CREATED));
+    }
+
+    @PutMapping("/item/{itemId}")
+    @Operation(summary = "Update an existing item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully updated item"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public Mono<ResponseEntity<ItemDto>> updateItem(
+            @Parameter(description = "Item Id to update an item", required = true) @PathVariable UUID itemId,
+            @Valid @RequestBody CreateItemDto createItemDto) {
+        return storeService.updateItem(itemId, createItemDto).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/item/{itemId}")
+    @Operation(summary = "Delete an item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully deleted item"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public Mono<ResponseEntity<Void>> deleteItem(
+            @Parameter(description = "Item Id to delete an item", required = true) @PathVariable UUID itemId) {
+        return storeService.deleteItem(itemId).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    }
+
+    @GetMapping("/item/{itemId}")
+    @Operation(summary = "Get details of an item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved item"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public Mono<ResponseEntity<ItemDto>> getItem(
+            @Parameter(description = "Item Id to retrieve an item", required = true) @PathVariable UUID itemId) {
+        return storeService.getItem(itemId).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/items")
+    @Operation(summary = "View a list of items from the range",
+            responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved items")})
+    public Mono<ResponseEntity<Page<ItemDto>>> getAllItems(Pageable pageable) {
+        return storeService.getAllItems(pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/items", params = "cursor")
+    @Operation(summary = "View a list of items ordered by id, starting after the given cursor",
+            responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved items")})
+    public Mono<ResponseEntity<CursorPageDto<ItemDto>>> getAllItemsAfter(
+            @Parameter(description = "Cursor returned by the previous page, empty for the first page")
+            @RequestParam(required = false) UUID cursor,
+            Pageable pageable) {
+        return storeService.getAllItemsAfter(cursor, pageable).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/item/{itemId}/sale")
+    @Operation(summary = "Sell an item",
+            responses = {
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found"),
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock for the item")
+            })
+    public Mono<ResponseEntity<Void>> sellItem(
+            @Parameter(description = "Item Id to sell item", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "Quantity of the item to sell", required = true) @RequestParam long quantity) {
+        return storeService.sellItem(itemId, quantity).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    }
+
+    @PostMapping("/order")
+    @Operation(summary = "Sell several items at once, all or nothing",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All order lines successfully sold"),
+                    @ApiResponse(responseCode = "404", description = "One of the ordered items is not found"),
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock for one of the ordered items")
+            })
+    public Mono<ResponseEntity<Void>> sellItems(@Valid @RequestBody CreateOrderDto createOrderDto) {
+        return storeService.sellItems(createOrderDto).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    }
+
+    @GetMapping("/item/{itemId}/sales")
+    @Operation(summary = "View sell operations for a specific item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of sold items"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public Mono<ResponseEntity<Page<SaleDto>>> getSoldItems(
+            @Parameter(description = "Item Id to get sell operations for", required = true) @PathVariable UUID itemId,
+            Pageable pageable) {
+        return storeService.getSoldItems(itemId, pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/item/{itemId}/sales", params = "cursor")
+    @Operation(summary = "View sell operations for a specific item, newest first, starting after the given cursor",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of sold items"),
+                    @ApiResponse(responseCode = "400", description = "The cursor is not valid")
+            })
+    public Mono<ResponseEntity<CursorPageDto<SaleDto>>> getSoldItemsBefore(
+            @Parameter(description = "Item Id to get sell operations for", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "Cursor returned by the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            Pageable pageable) {
+        return storeService.getSoldItemsBefore(itemId, cursor, pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/item/{itemId}/stock")
+    @Operation(summary = "View current stock level for a specific item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved stock quantity"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public Mono<ResponseEntity<Long>> getStockQuantity(
+            @Parameter(description = "Item Id to get stock quantity for", required = true) @PathVariable UUID itemId) {
+        return storeService.getStockQuantity(itemId).map(ResponseEntity::ok);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.SalesBucketDto;
+import com.tasks.store.service.SalesRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store/sales")
+@Tag(name = "Store Management System")
+public class SalesRollupController {
+
+    private final SalesRollupService salesRollupService;
+
+    @GetMapping("/rollups")
+    @Operation(summary = "View units sold, revenue and number of sales per hour or day, of one item or of all items",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved sales buckets"),
+                    @ApiResponse(responseCode = "400", description = "The time range is empty or too long")
+            })
+    public ResponseEntity<List<SalesBucketDto>> getRollups(
+            @Parameter(description = "HOUR or DAY") @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @Parameter(description = "Item Id to get sales for, all items if omitted")
+            @RequestParam(required = false) UUID itemId,
+            @Parameter(description = "Inclusive lower bound, ISO-8601, rounded down to the bucket start", required = true)
+            @RequestParam Instant from,
+            @Parameter(description = "Exclusive upper bound, ISO-8601", required = true)
+            @RequestParam Instant to) {
+        return new ResponseEntity<>(salesRollupService.getRollups(granularity, itemId, from, to), HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.tasks.store.controller;
+
+import com.tasks.store.model.SalesTotalDto;
+import com.tasks.store.service.SalesTotalsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/store")
+@Tag(name = "Store Management System")
+public class SalesTotalsController {
+
+    private final SalesTotalsService salesTotalsService;
+
+    @GetMapping("/item/{itemId}/sales-totals")
+    @Operation(summary = "View units sold, revenue and number of sales of an item",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved sales totals"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public ResponseEntity<SalesTotalDto> getSalesTotal(
+            @Parameter(description = "Item Id to get sales totals for", required = true) @PathVariable UUID itemId) {
+        return new ResponseEntity<>(salesTotalsService.getSalesTotal(itemId), HttpStatus.OK);
+    }
+
+    @GetMapping("/items/top-sellers")
+    @Operation(summary = "View the items with the most units sold",
+            responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved top sellers")})
+    public ResponseEntity<List<SalesTotalDto>> getTopSellers(
+            @Parameter(description = "Number of items to return, at most 100")
+            @RequestParam(defaultValue = "10") int limit) {
+        return new ResponseEntity<>(salesTotalsService.getTopSellers(limit), HttpStatus.OK);
+    }
+
+    @PostMapping("/sales-totals/rebuild")
+    @Operation(summary = "Recompute all sales totals from the recorded sales",
+            responses = {@ApiResponse(responseCode = "200", description = "Number of items with sales")})
+    public ResponseEntity<Integer> rebuildSalesTotals() {
+        return new ResponseEntity<>(salesTotalsService.rebuildSalesTotals(), HttpStatus.OK);
+    }
+
+}
@@ -1,17 +1,35 @@
 package com.tasks.store.controller;
 
 import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
+import com.tasks.store.model.HoldDto;
+import com.tasks.store.model.ItemBatchDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemIdsDto;
+import com.tasks.store.model.ItemSalesPageDto;
+import com.tasks.store.model.ItemVersionDto;
 import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.StockBatchDto;
+import com.tasks.store.model.StockDto;
+import com.tasks.store.service.IdempotencyService;
+import com.tasks.store.service.SellCoalescer;
+import com.tasks.store.service.StockChangePublisher;
+import com.tasks.store.service.StockReservationService;
 import com.tasks.store.service.StoreService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,27 +38,49 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.validation.Valid;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/store")
 @Tag(name = "Store Management System")
 @Validated
 public class StoreController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENCY_KEY_DESCRIPTION =
+            "Unique key of the request; a retry with the same key replays the first result instead of running again";
+
     private final StoreService storeService;
+    private final IdempotencyService idempotencyService;
+    private final SellCoalescer sellCoalescer;
+    private final StockChangePublisher stockChangePublisher;
+    private final StockReservationService stockReservationService;
 
     @PostMapping("/item")
     @Operation(summary = "Add a new item in the store",
-            responses = {@ApiResponse(responseCode = "201", description = "Item successfully created")})
-    public ResponseEntity<ItemDto> addItem(@Valid @RequestBody CreateItemDto createItemDto) {
-        return new ResponseEntity<>(storeService.addItem(createItemDto), HttpStatus.CREATED);
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Item successfully created"),
+                    @ApiResponse(responseCode = "422", description = "The idempotency key was used for another request")
+            })
+    public ResponseEntity<ItemDto> addItem(
+            @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateItemDto createItemDto) {
+        ItemDto itemDto = idempotencyKey == null
+                ? storeService.addItem(createItemDto)
+                : idempotencyService.execute(idempotencyKey, "POST /item " + createItemDto, ItemDto.class,
+                        () -> storeService.addItem(createItemDto));
+        return new ResponseEntity<>(itemDto, HttpStatus.CREATED);
     }
 
     @PutMapping("/item/{itemId}")
@@ -51,7 +91,7 @@ public class StoreController {
             })
     public ResponseEntity<ItemDto> updateItem(
             @Parameter(description = "Item Id to update an item", required = true) @PathVariable UUID itemId,
-            @RequestBody CreateItemDto createItemDto) {
+            @Valid @RequestBody CreateItemDto createItemDto) {
         return new ResponseEntity<>(storeService.updateItem(itemId, createItemDto), HttpStatus.OK);
     }
 
@@ -71,30 +111,162 @@ public class StoreController {
     @Operation(summary = "Get details of an item",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved item"),
+                    @ApiResponse(responseCode = "304", description = "The item has not changed since the given ETag"),
                     @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
             })
     public ResponseEntity<ItemDto> getItem(
-            @Parameter(description = "Item Id to retrieve an item", required = true) @PathVariable UUID itemId) {
-        return new ResponseEntity<>(storeService.getItem(itemId), HttpStatus.OK);
+            @Parameter(description = "Item Id to retrieve an item", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "ETag of a previously retrieved item")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = ETags.ofVersion(storeService.getItemVersion(itemId));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        ItemDto itemDto = storeService.getItem(itemId);
+        return ResponseEntity.ok().eTag(ETags.ofVersion(itemDto.getVersion())).body(itemDto);
     }
 
     @GetMapping("/items")
     @Operation(summary = "View a list of items from the range",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved items"),
+                    @ApiResponse(responseCode = "304", description = "The page has not changed since the given ETag")
+            })
+    public ResponseEntity<Page<ItemDto>> getAllItems(
+            @Parameter(description = "ETag of a previously retrieved page")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Pageable pageable) {
+        if (ifNoneMatch != null) {
+            Page<ItemVersionDto> versions = storeService.getAllItemVersions(pageable);
+            String etag = ETags.ofPage(versions.getTotalElements(), versions.getContent());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        Page<ItemDto> items = storeService.getAllItems(pageable);
+        String etag = ETags.ofPage(items.getTotalElements(),
+                items.map(item -> new ItemVersionDto(item.getId(), item.getVersion())).getContent());
+        return ResponseEntity.ok().eTag(etag).body(items);
+    }
+
+    @GetMapping(value = "/items", params = "cursor")
+    @Operation(summary = "View a list of items ordered by id, starting after the given cursor",
             responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved items")})
-    public ResponseEntity<Page<ItemDto>> getAllItems(Pageable pageable) {
-        return new ResponseEntity<>(storeService.getAllItems(pageable), HttpStatus.OK);
+    public ResponseEntity<CursorPageDto<ItemDto>> getAllItemsAfter(
+            @Parameter(description = "Cursor returned by the previous page, empty for the first page")
+            @RequestParam(required = false) UUID cursor,
+            Pageable pageable) {
+        return new ResponseEntity<>(storeService.getAllItemsAfter(cursor, pageable), HttpStatus.OK);
+    }
+
+    @GetMapping("/items/search")
+    @Operation(summary = "Search items by name, best matches first",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved matching items"),
+                    @ApiResponse(responseCode = "400", description = "The query is empty or too long")
+            })
+    public ResponseEntity<Slice<ItemDto>> searchItems(
+            @Parameter(description = "Name or part of a name; from 3 characters also matches similar names")
+            @RequestParam String query,
+            Pageable pageable) {
+        return new ResponseEntity<>(storeService.searchItems(query, pageable), HttpStatus.OK);
+    }
+
+    @PostMapping("/items/batch")
+    @Operation(summary = "Get details of several items at once",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Found items, and the ids not found or deleted"),
+                    @ApiResponse(responseCode = "400", description = "No ids, too many ids or an unknown field")
+            })
+    public ResponseEntity<ItemBatchDto> getItems(
+            @Parameter(description = "Fields to return besides the id: name, price, quantity, version; all if omitted")
+            @RequestParam(required = false) List<String> fields,
+            @RequestBody ItemIdsDto itemIdsDto) {
+        return new ResponseEntity<>(storeService.getItems(itemIdsDto.getIds(), fields), HttpStatus.OK);
+    }
+
+    @PostMapping("/items/stock/batch")
+    @Operation(summary = "View current stock levels of several items at once",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stock by item id, and ids not found or deleted"),
+                    @ApiResponse(responseCode = "400", description = "No ids or too many ids")
+            })
+    public ResponseEntity<StockBatchDto> getStocks(@RequestBody ItemIdsDto itemIdsDto) {
+        return new ResponseEntity<>(storeService.getStocks(itemIdsDto.getIds()), HttpStatus.OK);
     }
 
     @PostMapping("/item/{itemId}/sale")
     @Operation(summary = "Sell an item",
             responses = {
                     @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found"),
-                    @ApiResponse(responseCode = "400", description = "Insufficient stock for the item")
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock for the item"),
+                    @ApiResponse(responseCode = "422", description = "The idempotency key was used for another request")
             })
     public ResponseEntity<Void> sellItem(
+            @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Parameter(description = "Item Id to sell item", required = true) @PathVariable UUID itemId,
             @Parameter(description = "Quantity of the item to sell", required = true) @RequestParam long quantity) {
-        storeService.sellItem(itemId, quantity);
+        if (idempotencyKey == null) {
+            sellCoalescer.sellItem(itemId, quantity);
+        } else {
+            // Not coalesced, the sell has to commit together with its idempotency key
+            idempotencyService.execute(idempotencyKey, "POST /item/" + itemId + "/sale?quantity=" + quantity,
+                    Void.class, () -> {
+                        storeService.sellItem(itemId, quantity);
+                        return null;
+                    });
+        }
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping("/item/{itemId}/hold")
+    @Operation(summary = "Reserve stock of an item until it is confirmed or released, or the hold expires",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Stock reserved"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found"),
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock or a quantity below 1")
+            })
+    public ResponseEntity<HoldDto> reserveItem(
+            @Parameter(description = "Item Id to reserve stock of", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "Quantity to reserve", required = true) @RequestParam long quantity) {
+        return new ResponseEntity<>(stockReservationService.reserve(itemId, quantity), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    @Operation(summary = "Sell the reserved stock at the price it was reserved at",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Hold confirmed as a sale"),
+                    @ApiResponse(responseCode = "404", description = "The hold is unknown, expired or already ended")
+            })
+    public ResponseEntity<SaleDto> confirmHold(
+            @Parameter(description = "Hold Id to confirm", required = true) @PathVariable UUID holdId) {
+        return new ResponseEntity<>(stockReservationService.confirm(holdId), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    @Operation(summary = "Release reserved stock without selling it",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Hold released"),
+                    @ApiResponse(responseCode = "404", description = "The hold is unknown or already ended")
+            })
+    public ResponseEntity<Void> releaseHold(
+            @Parameter(description = "Hold Id to release", required = true) @PathVariable UUID holdId) {
+        stockReservationService.release(holdId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping("/order")
+    @Operation(summary = "Sell several items at once, all or nothing",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All order lines successfully sold"),
+                    @ApiResponse(responseCode = "404", description = "One of the ordered items is not found"),
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock for one of the ordered items")
+            })
+    public ResponseEntity<Void> sellItems(@Valid @RequestBody CreateOrderDto createOrderDto) {
+        storeService.sellItems(createOrderDto);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -110,15 +282,59 @@ public class StoreController {
         return new ResponseEntity<>(storeService.getSoldItems(itemId, pageable), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/item/{itemId}/sales", params = {"view=lean", "!cursor"})
+    @Operation(summary = "View sell operations for a specific item, with the item included once per page",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of sold items"),
+                    @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
+            })
+    public ResponseEntity<ItemSalesPageDto> getSoldItemsLean(
+            @Parameter(description = "Item Id to get sell operations for", required = true) @PathVariable UUID itemId,
+            Pageable pageable) {
+        return new ResponseEntity<>(storeService.getSoldItemsLean(itemId, pageable), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/item/{itemId}/sales", params = "cursor")
+    @Operation(summary = "View sell operations for a specific item, newest first, starting after the given cursor",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of sold items"),
+                    @ApiResponse(responseCode = "400", description = "The cursor is not valid")
+            })
+    public ResponseEntity<CursorPageDto<SaleDto>> getSoldItemsBefore(
+            @Parameter(description = "Item Id to get sell operations for", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "Cursor returned by the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            Pageable pageable) {
+        return new ResponseEntity<>(storeService.getSoldItemsBefore(itemId, cursor, pageable), HttpStatus.OK);
+    }
+
     @GetMapping("/item/{itemId}/stock")
     @Operation(summary = "View current stock level for a specific item",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved stock quantity"),
+                    @ApiResponse(responseCode = "304", description = "The stock has not changed since the given ETag"),
                     @ApiResponse(responseCode = "404", description = "The item you were trying to reach is not found")
             })
     public ResponseEntity<Long> getStockQuantity(
-            @Parameter(description = "Item Id to get stock quantity for", required = true) @PathVariable UUID itemId) {
-        return new ResponseEntity<>(storeService.getStockQuantity(itemId), HttpStatus.OK);
+            @Parameter(description = "Item Id to get stock quantity for", required = true) @PathVariable UUID itemId,
+            @Parameter(description = "ETag of a previously retrieved stock quantity")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Already a projection of quantity and version, served from cache most of the time
+        StockDto stock = storeService.getStock(itemId);
+        String etag = ETags.ofVersion(stock.getVersion());
+        if (ifNoneMatch != null && ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(stock.getQuantity());
+    }
+
+    @GetMapping(value = "/items/stock-changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream committed stock changes as server-sent events",
+            responses = {@ApiResponse(responseCode = "200", description = "Stream of stock events")})
+    public SseEmitter streamStockChanges(
+            @Parameter(description = "Items to receive stock changes of, all items if omitted")
+            @RequestParam(name = "itemId", required = false) Set<UUID> itemIds) {
+        return stockChangePublisher.subscribe(itemIds == null ? Set.of() : itemIds);
     }
 
 }
@@ -1,20 +1,39 @@
 package com.tasks.store.controller;
 
+import com.tasks.store.error.HoldNotFoundException;
+import com.tasks.store.error.IdempotencyKeyReusedException;
 import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidBatchLookupException;
+import com.tasks.store.error.InvalidCursorException;
+import com.tasks.store.error.InvalidIdempotencyKeyException;
+import com.tasks.store.error.InvalidImportException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.InvalidSearchQueryException;
+import com.tasks.store.error.InvalidTimeRangeException;
 import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.error.SellTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class StoreExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(InsufficientStockException.class)
     public ResponseEntity<String> handleInsufficientStockException(InsufficientStockException e) {
         log.error("InsufficientStockException: {}", e.getMessage(), e);
+        countError(e);
 
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
@@ -22,15 +41,110 @@ public class StoreExceptionHandler {
     @ExceptionHandler(ItemNotFoundException.class)
     public ResponseEntity<String> handleItemNotFoundException(ItemNotFoundException e) {
         log.error("ItemNotFoundException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(HoldNotFoundException.class)
+    public ResponseEntity<String> handleHoldNotFoundException(HoldNotFoundException e) {
+        log.error("HoldNotFoundException: {}", e.getMessage(), e);
+        countError(e);
 
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidQuantityException.class)
+    public ResponseEntity<String> handleInvalidQuantityException(InvalidQuantityException e) {
+        log.error("InvalidQuantityException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({MethodArgumentNotValidException.class, WebExchangeBindException.class,
+            ConstraintViolationException.class})
+    public ResponseEntity<String> handleValidationException(Exception e) {
+        log.error("{}: {}", e.getClass().getSimpleName(), e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException e) {
+        log.error("InvalidCursorException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<String> handleInvalidImportException(InvalidImportException e) {
+        log.error("InvalidImportException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidTimeRangeException.class)
+    public ResponseEntity<String> handleInvalidTimeRangeException(InvalidTimeRangeException e) {
+        log.error("InvalidTimeRangeException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<String> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException e) {
+        log.error("InvalidIdempotencyKeyException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidSearchQueryException.class)
+    public ResponseEntity<String> handleInvalidSearchQueryException(InvalidSearchQueryException e) {
+        log.error("InvalidSearchQueryException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidBatchLookupException.class)
+    public ResponseEntity<String> handleInvalidBatchLookupException(InvalidBatchLookupException e) {
+        log.error("InvalidBatchLookupException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+        log.error("IdempotencyKeyReusedException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(SellTimeoutException.class)
+    public ResponseEntity<String> handleSellTimeoutException(SellTimeoutException e) {
+        log.error("SellTimeoutException: {}", e.getMessage(), e);
+        countError(e);
+
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGenericException(Exception e) {
         log.error("Exception: {}", e.getMessage(), e);
+        countError(e);
 
         return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
 
+    private void countError(Exception e) {
+        meterRegistry.counter("store.errors", "exception", e.getClass().getSimpleName()).increment();
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.tasks.store.error;
+
+import java.util.UUID;
+
+public class HoldNotFoundException extends RuntimeException{
+
+    public HoldNotFoundException(UUID id) {
+        super("Hold with id " + id + " not found, it may have expired or been confirmed or released");
+    }
+
+}
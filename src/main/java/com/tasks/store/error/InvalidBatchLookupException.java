@@ -0,0 +1,9 @@
+package com.tasks.store.error;
+
+public class InvalidBatchLookupException extends RuntimeException{
+
+    public InvalidBatchLookupException(String reason) {
+        super("Invalid batch lookup: " + reason);
+    }
+
+}
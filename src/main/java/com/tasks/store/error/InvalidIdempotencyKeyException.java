@@ -0,0 +1,9 @@
+package com.tasks.store.error;
+
+public class InvalidIdempotencyKeyException extends RuntimeException{
+
+    public InvalidIdempotencyKeyException(String reason) {
+        super("Invalid idempotency key: " + reason);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.tasks.store.error;
+
+public class InvalidImportException extends RuntimeException{
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.tasks.store.error;
+
+public class InvalidQuantityException extends RuntimeException{
+
+    public InvalidQuantityException(Long quantity) {
+        super("Invalid quantity " + quantity + ": must be at least 1");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.tasks.store.error;
+
+public class InvalidSearchQueryException extends RuntimeException{
+
+    public InvalidSearchQueryException(String query, String reason) {
+        super("Invalid search query " + query + ": " + reason);
+    }
+
+}
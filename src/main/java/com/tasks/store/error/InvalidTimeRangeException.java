@@ -0,0 +1,11 @@
+package com.tasks.store.error;
+
+import java.time.Instant;
+
+public class InvalidTimeRangeException extends RuntimeException{
+
+    public InvalidTimeRangeException(Instant from, Instant to, String reason) {
+        super("Invalid time range [" + from + ", " + to + "): " + reason);
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.tasks.store.error;
+
+import java.time.Duration;
+import java.util.UUID;
+
+public class SellTimeoutException extends RuntimeException{
+
+    public SellTimeoutException(UUID id, Duration timeout) {
+        super("Sell of item with id " + id + " did not complete within " + timeout + " and may still be applied");
+    }
+
+}
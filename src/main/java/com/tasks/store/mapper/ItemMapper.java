@@ -3,13 +3,21 @@ package com.tasks.store.mapper;
 import com.tasks.store.model.Item;
 import com.tasks.store.model.CreateItemDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemRow;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ItemMapper {
 
     ItemDto toItemDto(Item item);
 
+    @Mapping(target = "version", ignore = true)
     Item toItem(CreateItemDto dto);
 
-}
\ No newline at end of file
+    ItemDto toItemDto(ItemRow item);
+
+    @Mapping(target = "version", ignore = true)
+    ItemRow toItemRow(CreateItemDto dto);
+
+}
@@ -1,12 +1,21 @@
 package com.tasks.store.mapper;
 
+import com.tasks.store.model.ItemRow;
 import com.tasks.store.model.Sale;
 import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.SaleRow;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface SaleMapper {
 
     SaleDto toSaleDto(Sale sale);
 
+    @Mapping(target = "id", source = "sale.id")
+    @Mapping(target = "item", source = "item")
+    @Mapping(target = "quantitySold", source = "sale.quantitySold")
+    @Mapping(target = "createdAt", source = "sale.createdAt")
+    SaleDto toSaleDto(SaleRow sale, ItemRow item);
+
 }
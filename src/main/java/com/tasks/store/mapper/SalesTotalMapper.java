@@ -0,0 +1,15 @@
+package com.tasks.store.mapper;
+
+import com.tasks.store.model.ItemSalesTotal;
+import com.tasks.store.model.SalesTotalDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface SalesTotalMapper {
+
+    @Mapping(target = "itemId", source = "item.id")
+    @Mapping(target = "name", source = "item.name")
+    SalesTotalDto toSalesTotalDto(ItemSalesTotal total);
+
+}
@@ -0,0 +1,16 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsDto {
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long size;
+
+}
@@ -1,10 +1,12 @@
 package com.tasks.store.model;
 
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
-import javax.validation.constraints.Min;
-import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.math.BigDecimal;
 
 @Data
@@ -14,12 +16,15 @@ public class CreateItemDto {
     @Size(min = 1, max = 255)
     private String name;
 
+    // Fits the DECIMAL(10,2) column, so a price is never rounded or rejected by the database
     @NotNull
     @Min(0)
+    @Digits(integer = 8, fraction = 2)
     private BigDecimal price;
 
     @NotNull
     @Min(0)
+    @Max(Integer.MAX_VALUE)
     private Long quantity;
 
 }
@@ -0,0 +1,15 @@
+package com.tasks.store.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateOrderDto {
+
+    @NotEmpty
+    private List<@Valid OrderLineDto> lines;
+
+}
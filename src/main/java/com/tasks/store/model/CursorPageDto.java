@@ -0,0 +1,21 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content;
+
+    /**
+     * Opaque token for the next page, null when there are no more elements.
+     */
+    private String nextCursor;
+
+}
@@ -0,0 +1,29 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldDto {
+
+    private UUID id;
+
+    private UUID itemId;
+
+    private Long quantity;
+
+    private BigDecimal unitPrice;
+
+    /**
+     * Time after which the hold can no longer be confirmed and its stock is released.
+     */
+    private Instant expiresAt;
+
+}
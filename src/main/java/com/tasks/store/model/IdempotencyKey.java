@@ -0,0 +1,40 @@
+package com.tasks.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Stored result of a request sent with an {@code Idempotency-Key} header. Rows are only written by the conditional
+ * insert that ends the request's transaction, never through JPA.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyKey {
+
+    @Id
+    private String id;
+
+    /**
+     * SHA-256 of the request, to reject the same key being reused for a different request.
+     */
+    @Column(nullable = false)
+    private String requestHash;
+
+    /**
+     * Response body as JSON, null for requests without one.
+     */
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+}
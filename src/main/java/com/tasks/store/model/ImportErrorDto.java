@@ -0,0 +1,16 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorDto {
+
+    private long row;
+
+    private String message;
+
+}
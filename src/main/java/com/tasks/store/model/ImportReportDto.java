@@ -0,0 +1,22 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportDto {
+
+    private long processed;
+
+    private long upserted;
+
+    private long failed;
+
+    /**
+     * Errors of the first failed rows, capped so a broken file cannot blow up the response.
+     */
+    private List<ImportErrorDto> errors = new ArrayList<>();
+
+}
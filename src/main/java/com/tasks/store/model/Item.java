@@ -2,13 +2,10 @@ package com.tasks.store.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Data;
 
-
 import java.math.BigDecimal;
 import java.util.UUID;
 
@@ -18,7 +15,7 @@ import java.util.UUID;
 public class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -33,4 +30,11 @@ public class Item {
     @Column(nullable = false)
     private boolean isDeleted;
 
+    /**
+     * Incremented by every change of the item, including sells; exposed as the ETag of item and stock responses. Not a
+     * JPA version: changes bump it in their own update, so an update never fails because a sell happened meanwhile.
+     */
+    @Column(nullable = false)
+    private Long version = 0L;
+
 }
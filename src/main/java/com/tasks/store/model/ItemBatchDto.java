@@ -0,0 +1,21 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Items of a batch lookup in the order they were asked for, and the ids that matched no active item.
+ */
+@Data
+public class ItemBatchDto {
+
+    private List<ItemDto> items = new ArrayList<>();
+
+    private List<UUID> notFound = new ArrayList<>();
+
+    private List<UUID> deleted = new ArrayList<>();
+
+}
@@ -1,11 +1,20 @@
 package com.tasks.store.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
+/**
+ * An item; fields left out of a batch lookup are null and not serialized.
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ItemDto {
 
     private UUID id;
@@ -16,4 +25,6 @@ public class ItemDto {
 
     private Long quantity;
 
+    private Long version;
+
 }
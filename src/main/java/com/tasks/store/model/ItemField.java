@@ -0,0 +1,20 @@
+package com.tasks.store.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Item fields a batch lookup can be limited to. The id is always returned.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ItemField {
+
+    NAME("name"),
+    PRICE("price"),
+    QUANTITY("quantity"),
+    VERSION("version");
+
+    private final String column;
+
+}
@@ -0,0 +1,17 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemIdsDto {
+
+    private List<UUID> ids;
+
+}
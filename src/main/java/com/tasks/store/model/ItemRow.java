@@ -0,0 +1,30 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the item table, used by the reactive stack.
+ */
+@Data
+@Table(name = "item", schema = "store_schema")
+public class ItemRow {
+
+    @Id
+    private UUID id;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private Long quantity;
+
+    private boolean isDeleted;
+
+    private Long version = 0L;
+
+}
@@ -0,0 +1,20 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Page of sales of one item, with the item included once instead of in every sale.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSalesPageDto {
+
+    private ItemDto item;
+
+    private Page<SaleLineDto> sales;
+
+}
@@ -0,0 +1,41 @@
+package com.tasks.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Running sales totals of an item. Rows are only written by the sale upsert and the rebuild, never through JPA.
+ */
+@Data
+@Entity
+@Table(name = "item_sales_total")
+public class ItemSalesTotal {
+
+    @Id
+    private UUID itemId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @Column(nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long saleCount = 0L;
+
+}
@@ -0,0 +1,19 @@
+package com.tasks.store.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class OrderLineDto {
+
+    @NotNull
+    private UUID itemId;
+
+    @NotNull
+    @Min(1)
+    private Long quantity;
+
+}
@@ -2,15 +2,16 @@ package com.tasks.store.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
 
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class Sale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne
@@ -29,4 +30,17 @@ public class Sale {
     @Column(nullable = false)
     private Long quantitySold;
 
+    @Column(nullable = false)
+    private BigDecimal unitPrice;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    /**
+     * Whether the sale is counted in the hourly and daily rollups; sales recorded without them are caught up later.
+     */
+    @Column(nullable = false)
+    private boolean rolledUp;
+
 }
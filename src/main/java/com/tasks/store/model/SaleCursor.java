@@ -0,0 +1,46 @@
+package com.tasks.store.model;
+
+import com.tasks.store.error.InvalidCursorException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of a sale in the (createdAt desc, id desc) order, encoded as an opaque continuation token.
+ */
+@Value
+public class SaleCursor {
+
+    Instant createdAt;
+
+    UUID id;
+
+    public static SaleCursor of(Sale sale) {
+        return new SaleCursor(sale.getCreatedAt(), sale.getId());
+    }
+
+    public static SaleCursor of(SaleRow sale) {
+        return new SaleCursor(sale.getCreatedAt(), sale.getId());
+    }
+
+    public static SaleCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            return new SaleCursor(Instant.parse(decoded.substring(0, separator)),
+                    UUID.fromString(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -2,6 +2,8 @@ package com.tasks.store.model;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
@@ -13,4 +15,8 @@ public class SaleDto {
 
     private Long quantitySold;
 
+    private BigDecimal unitPrice;
+
+    private Instant createdAt;
+
 }
@@ -0,0 +1,27 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Sale without its item, read straight from a projection query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleLineDto {
+
+    private UUID id;
+
+    private Long quantitySold;
+
+    private BigDecimal unitPrice;
+
+    private Instant createdAt;
+
+}
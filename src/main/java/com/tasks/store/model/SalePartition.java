@@ -0,0 +1,24 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A partition of the sale table, holding the sales created before its upper bound.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalePartition {
+
+    private String name;
+
+    /**
+     * Exclusive upper bound of created_at, null for a default or unbounded partition.
+     */
+    private Instant upperBound;
+
+}
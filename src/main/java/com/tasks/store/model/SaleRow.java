@@ -0,0 +1,32 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the sale table, used by the reactive stack. R2DBC has no associations, so the item is
+ * referenced by id only.
+ */
+@Data
+@Table(name = "sale", schema = "store_schema")
+public class SaleRow {
+
+    @Id
+    private UUID id;
+
+    private UUID itemId;
+
+    private Long quantitySold;
+
+    private BigDecimal unitPrice;
+
+    private Instant createdAt;
+
+    private boolean rolledUp;
+
+}
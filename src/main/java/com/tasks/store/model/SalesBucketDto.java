@@ -0,0 +1,19 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+public class SalesBucketDto {
+
+    private Instant bucketStart;
+
+    private Long unitsSold;
+
+    private BigDecimal revenue;
+
+    private Long saleCount;
+
+}
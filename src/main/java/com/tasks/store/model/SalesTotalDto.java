@@ -0,0 +1,21 @@
+package com.tasks.store.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+public class SalesTotalDto {
+
+    private UUID itemId;
+
+    private String name;
+
+    private Long unitsSold;
+
+    private BigDecimal revenue;
+
+    private Long saleCount;
+
+}
@@ -0,0 +1,25 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stock of the active items of a batch lookup by id, in the order they were asked for.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchDto {
+
+    private Map<UUID, Long> stock;
+
+    private List<UUID> notFound;
+
+    private List<UUID> deleted;
+
+}
@@ -0,0 +1,29 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Stock of an item after a change. Changes of one item may arrive out of order, a change with a lower version than
+ * one already received is outdated.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeDto {
+
+    private UUID itemId;
+
+    private Long quantity;
+
+    private Long version;
+
+    /**
+     * Whether the item was deleted; no further changes follow.
+     */
+    private boolean deleted;
+
+}
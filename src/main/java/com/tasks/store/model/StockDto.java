@@ -0,0 +1,19 @@
+package com.tasks.store.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock level of an item together with the item version it was read at.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDto {
+
+    private Long quantity;
+
+    private Long version;
+
+}
@@ -0,0 +1,45 @@
+package com.tasks.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Stock of an item after a committed change, kept in an outbox until it was streamed to subscribers. Rows are only
+ * written by the outbox insert in the transaction of the change, never through JPA.
+ */
+@Data
+@Entity
+@Table(name = "stock_event")
+public class StockEvent {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID itemId;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    /**
+     * Id of the transaction that wrote the event.
+     */
+    @Column(nullable = false)
+    private Long txId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+}
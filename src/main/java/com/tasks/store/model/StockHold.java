@@ -0,0 +1,46 @@
+package com.tasks.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Stock reserved for a checkout. The quantity is taken from the item when the hold is created and given back when it
+ * is released or expires, or kept as a sale when it is confirmed.
+ */
+@Data
+@Entity
+@Table(name = "stock_hold")
+public class StockHold {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID itemId;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    /**
+     * Price of the item when reserved, charged on confirmation.
+     */
+    @Column(nullable = false)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+}
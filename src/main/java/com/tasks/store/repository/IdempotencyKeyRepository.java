@@ -0,0 +1,9 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String>, IdempotencyKeyRepositoryCustom {
+}
@@ -0,0 +1,32 @@
+package com.tasks.store.repository;
+
+import java.time.Duration;
+
+public interface IdempotencyKeyRepositoryCustom {
+
+    /**
+     * Takes the key for a request unless a live entry exists; an expired entry is overwritten. Waits for a concurrent
+     * transaction that holds the same key to finish.
+     *
+     * @return true if the key was taken, false if it is already taken
+     */
+    boolean claim(String id, String requestHash, Duration ttl);
+
+    /**
+     * Stores the response of the request that claimed the key, in the transaction that claimed it.
+     */
+    void storeResponse(String id, String response);
+
+    /**
+     * @return number of expired keys deleted
+     */
+    int deleteExpired();
+
+    /**
+     * Deletes the keys closest to expiry until at most {@code maxKeys} remain.
+     *
+     * @return number of keys deleted
+     */
+    int trimTo(long maxKeys);
+
+}
@@ -0,0 +1,50 @@
+package com.tasks.store.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class IdempotencyKeyRepositoryCustomImpl implements IdempotencyKeyRepositoryCustom {
+
+    private static final String CLAIM_SQL = "INSERT INTO store_schema.idempotency_key AS k "
+            + "(id, request_hash, created_at, expires_at) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (id) DO UPDATE SET request_hash = EXCLUDED.request_hash, response = NULL, "
+            + "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+            + "WHERE k.expires_at <= EXCLUDED.created_at";
+
+    private static final String STORE_RESPONSE_SQL = "UPDATE store_schema.idempotency_key SET response = ? "
+            + "WHERE id = ?";
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM store_schema.idempotency_key WHERE expires_at <= ?";
+
+    private static final String TRIM_SQL = "DELETE FROM store_schema.idempotency_key WHERE id IN "
+            + "(SELECT id FROM store_schema.idempotency_key ORDER BY expires_at DESC OFFSET ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean claim(String id, String requestHash, Duration ttl) {
+        Instant now = Instant.now();
+        return jdbcTemplate.update(CLAIM_SQL, id, requestHash, Timestamp.from(now), Timestamp.from(now.plus(ttl))) == 1;
+    }
+
+    @Override
+    public void storeResponse(String id, String response) {
+        jdbcTemplate.update(STORE_RESPONSE_SQL, response, id);
+    }
+
+    @Override
+    public int deleteExpired() {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public int trimTo(long maxKeys) {
+        return jdbcTemplate.update(TRIM_SQL, maxKeys);
+    }
+
+}
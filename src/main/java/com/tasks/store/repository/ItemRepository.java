@@ -1,27 +1,84 @@
 package com.tasks.store.repository;
 
 import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemVersionDto;
+import com.tasks.store.model.StockDto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ItemRepository extends CrudRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, UUID>, ItemRepositoryCustom {
 
     Optional<Item> findById(UUID itemId);
 
+    @Query("select new com.tasks.store.model.ItemDto(i.id, i.name, i.price, i.quantity, i.version) "
+            + "from Item i where i.id = :id")
+    Optional<ItemDto> findDtoById(UUID id);
+
     Page<Item> findAll(Pageable pageable);
 
+    @Query(value = "select i from Item i where i.isDeleted = false",
+            countQuery = "select count(i) from Item i where i.isDeleted = false")
+    Page<Item> findAllActive(Pageable pageable);
+
+    @Query(value = "select new com.tasks.store.model.ItemVersionDto(i.id, i.version) from Item i "
+            + "where i.isDeleted = false",
+            countQuery = "select count(i) from Item i where i.isDeleted = false")
+    Page<ItemVersionDto> findAllActiveVersions(Pageable pageable);
+
+    @Query("select i from Item i where i.isDeleted = false order by i.id")
+    List<Item> findActiveFirst(Pageable pageable);
+
+    @Query("select i from Item i where i.isDeleted = false and i.id > :after order by i.id")
+    List<Item> findActiveAfter(UUID after, Pageable pageable);
+
+    /**
+     * Sets the item's details, with the quantity as the stock including held units. The item keeps what is not held.
+     * Lock the item first, so the update sees every hold committed before it.
+     *
+     * @return 0 when the item is missing or the quantity is below its held units
+     */
+    @Modifying
+    @Query("update Item i set i.name = :name, i.price = :price, "
+            + "i.quantity = :quantity - (select coalesce(sum(h.quantity), 0) from StockHold h where h.itemId = i.id), "
+            + "i.version = i.version + 1 where i.id = :id "
+            + "and :quantity >= (select coalesce(sum(h.quantity), 0) from StockHold h where h.itemId = i.id)")
+    int updateDetails(UUID id, String name, BigDecimal price, long quantity);
+
     @Modifying
-    @Query("update Item i set i.isDeleted = true where i.id = :id")
+    @Query("update Item i set i.isDeleted = true, i.version = i.version + 1 where i.id = :id")
     void markAsDeleted(UUID id);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :id and i.isDeleted = false")
+    Optional<Item> findActiveByIdForUpdate(UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findByIdForUpdate(UUID id);
+
+    @Query("select i.version from Item i where i.id = :id and i.isDeleted = false")
+    Optional<Long> findActiveVersionById(UUID id);
+
+    @Query("select new com.tasks.store.model.StockDto(i.quantity, i.version) from Item i "
+            + "where i.id = :id and i.isDeleted = false")
+    Optional<StockDto> findActiveStockById(UUID id);
+
+    @Query("select count(i) > 0 from Item i where i.id = :id and i.isDeleted = false")
+    boolean existsActiveById(UUID id);
+
     boolean existsById(UUID itemId);
 
 }
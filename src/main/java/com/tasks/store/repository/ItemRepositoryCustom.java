@@ -0,0 +1,64 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemBatchDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemField;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * Decrements stock in a single conditional update, returning the price so the sold item need not be loaded.
+     *
+     * @return price of the item at the time of the sale, empty when the item is missing, deleted or short of stock
+     */
+    Optional<BigDecimal> decrementQuantity(UUID id, long quantity);
+
+    /**
+     * Decrements stock of several items in one JDBC batch, in the iteration order of the given map.
+     *
+     * @return number of updated rows per item, 0 where the item is missing, deleted or has insufficient stock
+     */
+    int[] decrementQuantities(SortedMap<UUID, Long> quantities);
+
+    /**
+     * Gives stock back to several items in one JDBC batch, in the iteration order of the given map.
+     */
+    void incrementQuantities(SortedMap<UUID, Long> quantities);
+
+    /**
+     * Inserts items in one statement, updating price and quantity of items whose name already exists and restoring
+     * them if they were deleted. Quantities are the stock including held units, existing items keep what is not held;
+     * items whose quantity is below their held units are left unchanged. The names must be distinct; must run in a
+     * transaction, which keeps the existing items locked.
+     *
+     * @return ids of the inserted and updated items
+     */
+    List<UUID> upsertAllByName(List<Item> items);
+
+    /**
+     * Finds active items whose name starts with the query, using the prefix index.
+     */
+    List<ItemDto> searchByNamePrefix(String query, long offset, int limit);
+
+    /**
+     * Finds active items whose name contains the query or is similar to it, using the trigram index. Prefix matches
+     * come first, then matches ordered by trigram similarity.
+     */
+    List<ItemDto> searchByNameSimilarity(String query, long offset, int limit);
+
+    /**
+     * Reads the given fields of items by id in one query, in the order of the ids. Ids of deleted items and ids
+     * without an item are reported instead.
+     */
+    ItemBatchDto findBatch(Collection<UUID> ids, Set<ItemField> fields);
+
+}
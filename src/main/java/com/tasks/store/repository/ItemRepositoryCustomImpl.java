@@ -0,0 +1,174 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemBatchDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemField;
+import com.tasks.store.model.UuidV7Generator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    private static final String DECREMENT_QUANTITY_SQL = "UPDATE store_schema.item "
+            + "SET quantity = quantity - ?, version = version + 1 "
+            + "WHERE id = ? AND is_deleted = false AND quantity >= ?";
+
+    private static final String DECREMENT_QUANTITY_RETURNING_PRICE_SQL = DECREMENT_QUANTITY_SQL + " RETURNING price";
+
+    private static final String INCREMENT_QUANTITY_SQL = "UPDATE store_schema.item "
+            + "SET quantity = quantity + ?, version = version + 1 WHERE id = ?";
+
+    // Existing items are locked before the upsert, so its hold sums include every hold reserved before it
+    private static final String LOCK_BY_NAMES_SQL = "SELECT id FROM store_schema.item WHERE name = ANY (?) "
+            + "ORDER BY id FOR UPDATE";
+
+    // One statement for the whole batch, so the ids of inserted and updated items come back together
+    private static final String UPSERT_BY_NAME_SQL = "INSERT INTO store_schema.item (id, name, price, quantity) "
+            + "SELECT * FROM unnest(?, ?, ?, ?) "
+            + "ON CONFLICT (name) DO UPDATE SET price = EXCLUDED.price, quantity = EXCLUDED.quantity - ("
+            + "SELECT coalesce(sum(h.quantity), 0) FROM store_schema.stock_hold h WHERE h.item_id = item.id), "
+            + "is_deleted = false, version = item.version + 1 WHERE EXCLUDED.quantity >= ("
+            + "SELECT coalesce(sum(h.quantity), 0) FROM store_schema.stock_hold h WHERE h.item_id = item.id) "
+            + "RETURNING id";
+
+    private static final String SEARCH_BY_PREFIX_SQL = "SELECT id, name, price, quantity, version "
+            + "FROM store_schema.item WHERE is_deleted = false AND lower(name) COLLATE \"C\" LIKE lower(?) || '%' "
+            + "ORDER BY lower(name) COLLATE \"C\", id LIMIT ? OFFSET ?";
+
+    private static final String SEARCH_BY_SIMILARITY_SQL = "SELECT id, name, price, quantity, version "
+            + "FROM store_schema.item WHERE is_deleted = false "
+            + "AND (lower(name) LIKE '%' || lower(?) || '%' OR lower(name) % lower(?)) "
+            + "ORDER BY lower(name) LIKE lower(?) || '%' DESC, similarity(lower(name), lower(?)) DESC, lower(name), id "
+            + "LIMIT ? OFFSET ?";
+
+    // Ids without an item join to a row of nulls, so a single query answers for every id in the order given
+    private static final String FIND_BATCH_SQL = "SELECT r.id AS requested_id, i.id, i.is_deleted%s "
+            + "FROM unnest(?) WITH ORDINALITY AS r(id, position) "
+            + "LEFT JOIN store_schema.item i ON i.id = r.id ORDER BY r.position";
+
+    private static final RowMapper<ItemDto> ITEM_DTO_ROW_MAPPER = (rs, rowNum) -> new ItemDto(
+            rs.getObject("id", UUID.class), rs.getString("name"), rs.getBigDecimal("price"), rs.getLong("quantity"),
+            rs.getLong("version"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<BigDecimal> decrementQuantity(UUID id, long quantity) {
+        return jdbcTemplate.query(DECREMENT_QUANTITY_RETURNING_PRICE_SQL, (rs, rowNum) -> rs.getBigDecimal("price"),
+                quantity, id, quantity).stream().findFirst();
+    }
+
+    @Override
+    public int[] decrementQuantities(SortedMap<UUID, Long> quantities) {
+        List<Object[]> args = quantities.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey(), entry.getValue()})
+                .toList();
+
+        return jdbcTemplate.batchUpdate(DECREMENT_QUANTITY_SQL, args);
+    }
+
+    @Override
+    public void incrementQuantities(SortedMap<UUID, Long> quantities) {
+        List<Object[]> args = quantities.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+
+        jdbcTemplate.batchUpdate(INCREMENT_QUANTITY_SQL, args);
+    }
+
+    @Override
+    public List<UUID> upsertAllByName(List<Item> items) {
+        Object[] ids = new Object[items.size()];
+        Object[] names = new Object[items.size()];
+        Object[] prices = new Object[items.size()];
+        Object[] quantities = new Object[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            ids[i] = UuidV7Generator.next();
+            names[i] = item.getName();
+            prices[i] = item.getPrice();
+            quantities[i] = item.getQuantity();
+        }
+
+        jdbcTemplate.query(LOCK_BY_NAMES_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", names)),
+                (RowCallbackHandler) rs -> {
+                });
+        return jdbcTemplate.query(UPSERT_BY_NAME_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids));
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", names));
+            ps.setArray(3, ps.getConnection().createArrayOf("numeric", prices));
+            ps.setArray(4, ps.getConnection().createArrayOf("bigint", quantities));
+        }, (rs, rowNum) -> rs.getObject("id", UUID.class));
+    }
+
+    @Override
+    public List<ItemDto> searchByNamePrefix(String query, long offset, int limit) {
+        return jdbcTemplate.query(SEARCH_BY_PREFIX_SQL, ITEM_DTO_ROW_MAPPER, escapeLike(query), limit, offset);
+    }
+
+    @Override
+    public List<ItemDto> searchByNameSimilarity(String query, long offset, int limit) {
+        String pattern = escapeLike(query);
+        return jdbcTemplate.query(SEARCH_BY_SIMILARITY_SQL, ITEM_DTO_ROW_MAPPER, pattern, query, pattern, query,
+                limit, offset);
+    }
+
+    @Override
+    public ItemBatchDto findBatch(Collection<UUID> ids, Set<ItemField> fields) {
+        StringBuilder columns = new StringBuilder();
+        fields.forEach(field -> columns.append(", i.").append(field.getColumn()));
+
+        ItemBatchDto batch = new ItemBatchDto();
+        jdbcTemplate.query(FIND_BATCH_SQL.formatted(columns),
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())),
+                (RowCallbackHandler) rs -> addToBatch(rs, fields, batch));
+        return batch;
+    }
+
+    private static void addToBatch(ResultSet rs, Set<ItemField> fields, ItemBatchDto batch) throws SQLException {
+        UUID id = rs.getObject("requested_id", UUID.class);
+        if (rs.getObject("id") == null) {
+            batch.getNotFound().add(id);
+            return;
+        }
+        if (rs.getBoolean("is_deleted")) {
+            batch.getDeleted().add(id);
+            return;
+        }
+
+        ItemDto item = new ItemDto();
+        item.setId(id);
+        if (fields.contains(ItemField.NAME)) {
+            item.setName(rs.getString("name"));
+        }
+        if (fields.contains(ItemField.PRICE)) {
+            item.setPrice(rs.getBigDecimal("price"));
+        }
+        if (fields.contains(ItemField.QUANTITY)) {
+            item.setQuantity(rs.getLong("quantity"));
+        }
+        if (fields.contains(ItemField.VERSION)) {
+            item.setVersion(rs.getLong("version"));
+        }
+        batch.getItems().add(item);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
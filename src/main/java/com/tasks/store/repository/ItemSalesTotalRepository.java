@@ -0,0 +1,26 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.ItemSalesTotal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ItemSalesTotalRepository extends JpaRepository<ItemSalesTotal, UUID>, ItemSalesTotalRepositoryCustom {
+
+    @Query("select t from ItemSalesTotal t join fetch t.item i where t.itemId = :itemId and i.isDeleted = false")
+    Optional<ItemSalesTotal> findByActiveItemId(UUID itemId);
+
+    /**
+     * Walks the units sold index from the top, so the cost depends on the page size and not on the catalog size.
+     */
+    @Query("select t from ItemSalesTotal t join fetch t.item i where i.isDeleted = false "
+            + "order by t.unitsSold desc, t.itemId")
+    List<ItemSalesTotal> findTopSellers(Pageable pageable);
+
+}
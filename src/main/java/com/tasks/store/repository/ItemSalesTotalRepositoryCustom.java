@@ -0,0 +1,23 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.Sale;
+
+import java.util.List;
+
+public interface ItemSalesTotalRepositoryCustom {
+
+    /**
+     * Adds sales to the running totals of their items in one JDBC batch. Each row is updated atomically, so
+     * concurrent sells never lose an increment; sales should be ordered by item id to keep the lock order stable.
+     */
+    void addSales(List<Sale> sales);
+
+    /**
+     * Recomputes all totals from the sale table and the archived totals of removed partitions, blocking concurrent
+     * sells on the totals until the transaction ends.
+     *
+     * @return number of items with sales
+     */
+    int rebuild();
+
+}
@@ -0,0 +1,50 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.Sale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ItemSalesTotalRepositoryCustomImpl implements ItemSalesTotalRepositoryCustom {
+
+    private static final String ADD_SALE_SQL = "INSERT INTO store_schema.item_sales_total AS t "
+            + "(item_id, units_sold, revenue, sale_count) VALUES (?, ?, ?, 1) "
+            + "ON CONFLICT (item_id) DO UPDATE SET units_sold = t.units_sold + EXCLUDED.units_sold, "
+            + "revenue = t.revenue + EXCLUDED.revenue, sale_count = t.sale_count + 1";
+
+    private static final String LOCK_SQL = "LOCK TABLE store_schema.item_sales_total IN EXCLUSIVE MODE";
+
+    private static final String DELETE_SQL = "DELETE FROM store_schema.item_sales_total";
+
+    // Sales of removed partitions only remain in the archived totals
+    private static final String REBUILD_SQL = "INSERT INTO store_schema.item_sales_total "
+            + "(item_id, units_sold, revenue, sale_count) "
+            + "SELECT item_id, sum(units_sold), sum(revenue), sum(sale_count) FROM ("
+            + "SELECT item_id, sum(quantity_sold) AS units_sold, sum(quantity_sold * unit_price) AS revenue, "
+            + "count(*) AS sale_count FROM store_schema.sale GROUP BY item_id "
+            + "UNION ALL SELECT item_id, units_sold, revenue, sale_count FROM store_schema.item_sales_archived_total"
+            + ") totals GROUP BY item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addSales(List<Sale> sales) {
+        List<Object[]> args = sales.stream()
+                .map(sale -> new Object[]{sale.getItem().getId(), sale.getQuantitySold(),
+                        sale.getUnitPrice().multiply(BigDecimal.valueOf(sale.getQuantitySold()))})
+                .toList();
+
+        jdbcTemplate.batchUpdate(ADD_SALE_SQL, args);
+    }
+
+    @Override
+    public int rebuild() {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.update(DELETE_SQL);
+        return jdbcTemplate.update(REBUILD_SQL);
+    }
+
+}
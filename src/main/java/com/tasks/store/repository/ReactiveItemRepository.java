@@ -0,0 +1,77 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.ItemRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface ReactiveItemRepository extends R2dbcRepository<ItemRow, UUID> {
+
+    @Query("SELECT * FROM store_schema.item WHERE id = :id AND is_deleted = false")
+    Mono<ItemRow> findActiveById(UUID id);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM store_schema.item WHERE id = :id AND is_deleted = false)")
+    Mono<Boolean> existsActiveById(UUID id);
+
+    Flux<ItemRow> findByIsDeletedFalse(Pageable pageable);
+
+    Mono<Long> countByIsDeletedFalse();
+
+    @Query("SELECT * FROM store_schema.item WHERE is_deleted = false ORDER BY id LIMIT :limit")
+    Flux<ItemRow> findActiveFirst(int limit);
+
+    @Query("SELECT * FROM store_schema.item WHERE is_deleted = false AND id > :after ORDER BY id LIMIT :limit")
+    Flux<ItemRow> findActiveAfter(UUID after, int limit);
+
+    @Query("SELECT id FROM store_schema.item WHERE id = :id FOR UPDATE")
+    Mono<UUID> lockById(UUID id);
+
+    /**
+     * Sets the item's details, with the quantity as the stock including held units. The item keeps what is not held.
+     * Lock the item first, so the update sees every hold committed before it.
+     *
+     * @return the updated item, empty when the item is missing or the quantity is below its held units
+     */
+    @Query("UPDATE store_schema.item SET name = :name, price = :price, quantity = :quantity - ("
+            + "SELECT coalesce(sum(h.quantity), 0) FROM store_schema.stock_hold h WHERE h.item_id = item.id), "
+            + "version = version + 1 WHERE id = :id AND :quantity >= ("
+            + "SELECT coalesce(sum(h.quantity), 0) FROM store_schema.stock_hold h WHERE h.item_id = item.id) "
+            + "RETURNING *")
+    Mono<ItemRow> updateDetails(UUID id, String name, BigDecimal price, long quantity);
+
+    @Modifying
+    @Query("UPDATE store_schema.item SET is_deleted = true, version = version + 1 WHERE id = :id")
+    Mono<Integer> markAsDeleted(UUID id);
+
+    /**
+     * Takes the stock only if the item is active and has enough of it, so concurrent sells can never oversell.
+     *
+     * @return price of the item at the time of the sale, empty when the item is missing, deleted or short of stock
+     */
+    @Query("UPDATE store_schema.item SET quantity = quantity - :quantity, version = version + 1 "
+            + "WHERE id = :id AND is_deleted = false AND quantity >= :quantity RETURNING price")
+    Mono<BigDecimal> decrementQuantity(UUID id, long quantity);
+
+    /**
+     * Records the current stock of the item in the stock change outbox, in the transaction that changed it. The
+     * outbox is streamed by the servlet stack, see {@code StockChangePublisher}.
+     */
+    @Modifying
+    @Query("INSERT INTO store_schema.stock_event (item_id, quantity, version, deleted) "
+            + "SELECT id, quantity, version, is_deleted FROM store_schema.item WHERE id = :id")
+    Mono<Integer> recordStockChange(UUID id);
+
+    @Modifying
+    @Query("DELETE FROM store_schema.stock_event WHERE created_at < :createdBefore")
+    Mono<Integer> deleteStockEventsCreatedBefore(Instant createdBefore);
+
+}
@@ -0,0 +1,46 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.SaleRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface ReactiveSaleRepository extends R2dbcRepository<SaleRow, UUID>, ReactiveSaleRepositoryCustom {
+
+    Flux<SaleRow> findByItemId(UUID itemId, Pageable pageable);
+
+    Mono<Long> countByItemId(UUID itemId);
+
+    @Query("SELECT * FROM store_schema.sale WHERE item_id = :itemId ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<SaleRow> findLatestByItemId(UUID itemId, int limit);
+
+    @Query("SELECT * FROM store_schema.sale WHERE item_id = :itemId AND created_at <= :createdAt "
+            + "AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<SaleRow> findByItemIdBefore(UUID itemId, Instant createdAt, UUID id, int limit);
+
+    @Modifying
+    @Query("INSERT INTO store_schema.item_sales_total AS t (item_id, units_sold, revenue, sale_count) "
+            + "VALUES (:itemId, :units, :revenue, 1) "
+            + "ON CONFLICT (item_id) DO UPDATE SET units_sold = t.units_sold + EXCLUDED.units_sold, "
+            + "revenue = t.revenue + EXCLUDED.revenue, sale_count = t.sale_count + 1")
+    Mono<Integer> addToSalesTotal(UUID itemId, long units, BigDecimal revenue);
+
+    @Modifying
+    @Query("INSERT INTO store_schema.sale_rollup AS r "
+            + "(granularity, item_id, bucket_start, units_sold, revenue, sale_count) "
+            + "VALUES (:granularity, :itemId, :bucketStart, :units, :revenue, 1) "
+            + "ON CONFLICT (granularity, item_id, bucket_start) DO UPDATE SET "
+            + "units_sold = r.units_sold + EXCLUDED.units_sold, revenue = r.revenue + EXCLUDED.revenue, "
+            + "sale_count = r.sale_count + 1")
+    Mono<Integer> addToRollup(String granularity, UUID itemId, Instant bucketStart, long units, BigDecimal revenue);
+
+}
@@ -0,0 +1,32 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.SalePartition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Partition maintenance of the reactive stack, running the same statements as {@link SaleRepositoryCustom}.
+ */
+public interface ReactiveSaleRepositoryCustom {
+
+    /**
+     * Partitions of the sale table ordered by upper bound, unbounded ones last.
+     */
+    Flux<SalePartition> findPartitions();
+
+    /**
+     * Creates a partition for the sales created within [from, to), moving the sales of that range out of the default
+     * partition.
+     */
+    Mono<Void> createPartition(String name, Instant from, Instant to);
+
+    /**
+     * Takes the partition maintenance lock until the end of the transaction, unless another transaction holds it.
+     *
+     * @return whether the lock was taken
+     */
+    Mono<Boolean> tryLockPartitions();
+
+}
@@ -0,0 +1,47 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.SalePartition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+@RequiredArgsConstructor
+public class ReactiveSaleRepositoryCustomImpl implements ReactiveSaleRepositoryCustom {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<SalePartition> findPartitions() {
+        return databaseClient.sql(SaleRepositoryCustomImpl.FIND_PARTITIONS_SQL)
+                .map(row -> {
+                    OffsetDateTime upperBound = row.get("upper_bound", OffsetDateTime.class);
+                    return new SalePartition(row.get("name", String.class),
+                            upperBound == null ? null : upperBound.toInstant());
+                })
+                .all();
+    }
+
+    @Override
+    public Mono<Void> createPartition(String name, Instant from, Instant to) {
+        String partition = SaleRepositoryCustomImpl.quote(name);
+        return execute(SaleRepositoryCustomImpl.CREATE_PARTITION_TABLE_SQL.formatted(partition))
+                .then(execute(SaleRepositoryCustomImpl.MOVE_FROM_DEFAULT_PARTITION_SQL.formatted(partition, from, to)))
+                .then(execute(SaleRepositoryCustomImpl.ATTACH_PARTITION_SQL.formatted(partition, from, to)));
+    }
+
+    @Override
+    public Mono<Boolean> tryLockPartitions() {
+        return databaseClient.sql(SaleRepositoryCustomImpl.PARTITION_LOCK_SQL)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    private Mono<Void> execute(String sql) {
+        return databaseClient.sql(sql).then();
+    }
+
+}
@@ -1,16 +1,38 @@
 package com.tasks.store.repository;
 
 import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleLineDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface SaleRepository extends JpaRepository<Sale, UUID> {
+public interface SaleRepository extends JpaRepository<Sale, UUID>, SaleRepositoryCustom {
 
     Page<Sale> findByItemId(UUID itemId, Pageable pageable);
 
+    /**
+     * Reads sales of an item into DTOs, without loading the entities or their item.
+     */
+    @Query(value = "select new com.tasks.store.model.SaleLineDto(s.id, s.quantitySold, s.unitPrice, s.createdAt) "
+            + "from Sale s where s.item.id = :itemId",
+            countQuery = "select count(s) from Sale s where s.item.id = :itemId")
+    Page<SaleLineDto> findLinesByItemId(UUID itemId, Pageable pageable);
+
+    @Query("select s from Sale s where s.item.id = :itemId order by s.createdAt desc, s.id desc")
+    List<Sale> findLatestByItemId(UUID itemId, Pageable pageable);
+
+    /**
+     * The plain bound on createdAt lets Postgres skip the sale partitions of later months.
+     */
+    @Query("select s from Sale s where s.item.id = :itemId and s.createdAt <= :createdAt "
+            + "and (s.createdAt, s.id) < (:createdAt, :id) order by s.createdAt desc, s.id desc")
+    List<Sale> findByItemIdBefore(UUID itemId, Instant createdAt, UUID id, Pageable pageable);
+
 }
@@ -0,0 +1,77 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.Sale;
+import com.tasks.store.model.SalePartition;
+import com.tasks.store.model.SalesBucketDto;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface SaleRepositoryCustom {
+
+    /**
+     * Adds flushed sales to the hourly and daily buckets of their items in one JDBC batch.
+     */
+    void addToRollups(List<Sale> sales);
+
+    /**
+     * Rolls up the oldest sales that are not counted in the buckets yet and marks them as rolled up. Rows locked by
+     * running transactions are skipped, so the job never waits for sells.
+     *
+     * @return number of sales rolled up, less than the limit once the backlog is drained
+     */
+    int catchUpRollups(int limit);
+
+    /**
+     * Buckets within [from, to) ordered by start, of a single item or summed over all items when itemId is null.
+     * Buckets without sales are omitted.
+     */
+    List<SalesBucketDto> findRollups(RollupGranularity granularity, UUID itemId, Instant from, Instant to);
+
+    /**
+     * Partitions of the sale table ordered by upper bound, unbounded ones last.
+     */
+    List<SalePartition> findPartitions();
+
+    /**
+     * Creates a partition for the sales created within [from, to), moving the sales of that range out of the default
+     * partition.
+     */
+    void createPartition(String name, Instant from, Instant to);
+
+    /**
+     * Adds the sales of a partition to the archived totals of their items, before the partition is removed.
+     */
+    void addToArchivedTotals(String name);
+
+    /**
+     * Writes all sales of a partition to the stream as CSV with a header line.
+     *
+     * @return number of sales written
+     */
+    long copyPartition(String name, OutputStream out);
+
+    void dropPartition(String name);
+
+    /**
+     * Detaches a partition from the sale table, leaving it as a standalone table.
+     */
+    void detachPartition(String name);
+
+    /**
+     * Takes the partition maintenance lock until the end of the transaction, unless another transaction holds it.
+     *
+     * @return whether the lock was taken
+     */
+    boolean tryLockPartitions();
+
+    /**
+     * Limits how long statements of the current transaction wait for a lock.
+     */
+    void setLockTimeout(Duration timeout);
+
+}
@@ -0,0 +1,193 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.Sale;
+import com.tasks.store.model.SalePartition;
+import com.tasks.store.model.SalesBucketDto;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class SaleRepositoryCustomImpl implements SaleRepositoryCustom {
+
+    private static final String ADD_TO_ROLLUP_SQL = "INSERT INTO store_schema.sale_rollup AS r "
+            + "(granularity, item_id, bucket_start, units_sold, revenue, sale_count) VALUES (?, ?, ?, ?, ?, 1) "
+            + "ON CONFLICT (granularity, item_id, bucket_start) DO UPDATE SET "
+            + "units_sold = r.units_sold + EXCLUDED.units_sold, revenue = r.revenue + EXCLUDED.revenue, "
+            + "sale_count = r.sale_count + 1";
+
+    private static final String CATCH_UP_SQL = "WITH late AS ("
+            + "UPDATE store_schema.sale SET rolled_up = true WHERE (id, created_at) IN ("
+            + "SELECT id, created_at FROM store_schema.sale WHERE rolled_up = false ORDER BY created_at LIMIT ? "
+            + "FOR UPDATE SKIP LOCKED) "
+            + "RETURNING item_id, created_at, quantity_sold, unit_price), "
+            + "buckets AS ("
+            + "SELECT g.granularity, l.item_id, date_trunc(g.field, l.created_at, 'UTC') AS bucket_start, "
+            + "sum(l.quantity_sold) AS units_sold, sum(l.quantity_sold * l.unit_price) AS revenue, "
+            + "count(*) AS sale_count "
+            + "FROM late l CROSS JOIN (VALUES ('HOUR', 'hour'), ('DAY', 'day')) AS g(granularity, field) "
+            + "GROUP BY g.granularity, l.item_id, bucket_start), "
+            + "upserted AS ("
+            + "INSERT INTO store_schema.sale_rollup AS r "
+            + "(granularity, item_id, bucket_start, units_sold, revenue, sale_count) "
+            + "SELECT granularity, item_id, bucket_start, units_sold, revenue, sale_count FROM buckets "
+            + "ORDER BY granularity, item_id, bucket_start "
+            + "ON CONFLICT (granularity, item_id, bucket_start) DO UPDATE SET "
+            + "units_sold = r.units_sold + EXCLUDED.units_sold, revenue = r.revenue + EXCLUDED.revenue, "
+            + "sale_count = r.sale_count + EXCLUDED.sale_count) "
+            + "SELECT count(*) FROM late";
+
+    private static final String FIND_ITEM_ROLLUPS_SQL = "SELECT bucket_start, units_sold, revenue, sale_count "
+            + "FROM store_schema.sale_rollup WHERE granularity = ? AND item_id = ? "
+            + "AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+
+    private static final String FIND_ALL_ROLLUPS_SQL = "SELECT bucket_start, sum(units_sold) AS units_sold, "
+            + "sum(revenue) AS revenue, sum(sale_count) AS sale_count "
+            + "FROM store_schema.sale_rollup WHERE granularity = ? "
+            + "AND bucket_start >= ? AND bucket_start < ? GROUP BY bucket_start ORDER BY bucket_start";
+
+    // Bounds print as FOR VALUES FROM ('...') TO ('...'), or FROM (MINVALUE) for the partition of the oldest sales
+    static final String FIND_PARTITIONS_SQL = "SELECT c.relname AS name, "
+            + "(regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz "
+            + "AS upper_bound "
+            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = 'store_schema.sale'::regclass ORDER BY upper_bound NULLS LAST";
+
+    // A new partition is filled from the default partition before it is attached, as a partition cannot be attached
+    // while the default one holds rows of its range. Bounds are literals, DDL takes no parameters.
+    static final String CREATE_PARTITION_TABLE_SQL = "CREATE TABLE store_schema.%s "
+            + "(LIKE store_schema.sale INCLUDING DEFAULTS)";
+
+    static final String MOVE_FROM_DEFAULT_PARTITION_SQL = "WITH moved AS (DELETE FROM store_schema.sale_default "
+            + "WHERE created_at >= '%2$s' AND created_at < '%3$s' RETURNING *) "
+            + "INSERT INTO store_schema.%1$s (id, item_id, quantity_sold, unit_price, created_at, rolled_up) "
+            + "SELECT id, item_id, quantity_sold, unit_price, created_at, rolled_up FROM moved";
+
+    static final String ATTACH_PARTITION_SQL = "ALTER TABLE store_schema.sale ATTACH PARTITION store_schema.%s "
+            + "FOR VALUES FROM ('%s') TO ('%s')";
+
+    static final String PARTITION_LOCK_SQL = "SELECT pg_try_advisory_xact_lock("
+            + "'store_schema.sale'::regclass::oid::bigint)";
+
+    private static final String ADD_TO_ARCHIVED_TOTALS_SQL = "INSERT INTO store_schema.item_sales_archived_total AS t "
+            + "(item_id, units_sold, revenue, sale_count) "
+            + "SELECT item_id, sum(quantity_sold), sum(quantity_sold * unit_price), count(*) "
+            + "FROM store_schema.%s GROUP BY item_id "
+            + "ON CONFLICT (item_id) DO UPDATE SET units_sold = t.units_sold + EXCLUDED.units_sold, "
+            + "revenue = t.revenue + EXCLUDED.revenue, sale_count = t.sale_count + EXCLUDED.sale_count";
+
+    private static final RowMapper<SalePartition> PARTITION_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp upperBound = rs.getTimestamp("upper_bound");
+        return new SalePartition(rs.getString("name"), upperBound == null ? null : upperBound.toInstant());
+    };
+
+    private static final RowMapper<SalesBucketDto> BUCKET_ROW_MAPPER = (rs, rowNum) -> {
+        SalesBucketDto bucket = new SalesBucketDto();
+        bucket.setBucketStart(rs.getTimestamp("bucket_start").toInstant());
+        bucket.setUnitsSold(rs.getLong("units_sold"));
+        bucket.setRevenue(rs.getBigDecimal("revenue"));
+        bucket.setSaleCount(rs.getLong("sale_count"));
+        return bucket;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addToRollups(List<Sale> sales) {
+        List<Object[]> args = new ArrayList<>(sales.size() * RollupGranularity.values().length);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            for (Sale sale : sales) {
+                BigDecimal revenue = sale.getUnitPrice().multiply(BigDecimal.valueOf(sale.getQuantitySold()));
+                args.add(new Object[]{granularity.name(), sale.getItem().getId(),
+                        Timestamp.from(granularity.bucketStart(sale.getCreatedAt())), sale.getQuantitySold(), revenue});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(ADD_TO_ROLLUP_SQL, args);
+    }
+
+    @Override
+    public int catchUpRollups(int limit) {
+        Integer sales = jdbcTemplate.queryForObject(CATCH_UP_SQL, Integer.class, limit);
+        return sales == null ? 0 : sales;
+    }
+
+    @Override
+    public List<SalesBucketDto> findRollups(RollupGranularity granularity, UUID itemId, Instant from, Instant to) {
+        if (itemId == null) {
+            return jdbcTemplate.query(FIND_ALL_ROLLUPS_SQL, BUCKET_ROW_MAPPER,
+                    granularity.name(), Timestamp.from(from), Timestamp.from(to));
+        }
+        return jdbcTemplate.query(FIND_ITEM_ROLLUPS_SQL, BUCKET_ROW_MAPPER,
+                granularity.name(), itemId, Timestamp.from(from), Timestamp.from(to));
+    }
+
+    @Override
+    public List<SalePartition> findPartitions() {
+        return jdbcTemplate.query(FIND_PARTITIONS_SQL, PARTITION_ROW_MAPPER);
+    }
+
+    @Override
+    public void createPartition(String name, Instant from, Instant to) {
+        jdbcTemplate.execute(CREATE_PARTITION_TABLE_SQL.formatted(quote(name)));
+        jdbcTemplate.update(MOVE_FROM_DEFAULT_PARTITION_SQL.formatted(quote(name), from, to));
+        jdbcTemplate.execute(ATTACH_PARTITION_SQL.formatted(quote(name), from, to));
+    }
+
+    @Override
+    public void addToArchivedTotals(String name) {
+        jdbcTemplate.update(ADD_TO_ARCHIVED_TOTALS_SQL.formatted(quote(name)));
+    }
+
+    @Override
+    public long copyPartition(String name, OutputStream out) {
+        String sql = "COPY store_schema." + quote(name) + " TO STDOUT (FORMAT csv, HEADER)";
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    @Override
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE store_schema." + quote(name));
+    }
+
+    @Override
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE store_schema.sale DETACH PARTITION store_schema." + quote(name));
+    }
+
+    @Override
+    public boolean tryLockPartitions() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(PARTITION_LOCK_SQL, Boolean.class));
+    }
+
+    @Override
+    public void setLockTimeout(Duration timeout) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + timeout.toMillis());
+    }
+
+    static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+}
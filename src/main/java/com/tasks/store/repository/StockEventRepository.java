@@ -0,0 +1,9 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockEventRepository extends JpaRepository<StockEvent, Long>, StockEventRepositoryCustom {
+}
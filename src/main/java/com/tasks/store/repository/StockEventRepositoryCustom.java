@@ -0,0 +1,36 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockEvent;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface StockEventRepositoryCustom {
+
+    /**
+     * Records the current stock of the items as events of the current transaction. Changes of the items must be
+     * flushed before.
+     */
+    void recordChanges(Collection<UUID> itemIds);
+
+    /**
+     * @return the lowest id of a transaction still running; every transaction with a lower id has ended
+     */
+    long findTxHorizon();
+
+    /**
+     * Finds events after the given position written by transactions below the horizon, so none of them can still be
+     * rolled back and no transaction below the horizon can still add events.
+     *
+     * @return events ordered by transaction and id
+     */
+    List<StockEvent> findCommitted(long afterTxId, long afterId, long txHorizon, int limit);
+
+    /**
+     * @return number of events deleted
+     */
+    int deleteCreatedBefore(Instant createdBefore);
+
+}
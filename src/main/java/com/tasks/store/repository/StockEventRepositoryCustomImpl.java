@@ -0,0 +1,63 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class StockEventRepositoryCustomImpl implements StockEventRepositoryCustom {
+
+    private static final String RECORD_CHANGES_SQL = "INSERT INTO store_schema.stock_event "
+            + "(item_id, quantity, version, deleted) "
+            + "SELECT id, quantity, version, is_deleted FROM store_schema.item WHERE id = ANY (?)";
+
+    private static final String TX_HORIZON_SQL = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+
+    private static final String FIND_COMMITTED_SQL = "SELECT id, item_id, quantity, version, deleted, tx_id, created_at "
+            + "FROM store_schema.stock_event WHERE (tx_id, id) > (?, ?) AND tx_id < ? ORDER BY tx_id, id LIMIT ?";
+
+    private static final String DELETE_CREATED_BEFORE_SQL = "DELETE FROM store_schema.stock_event WHERE created_at < ?";
+
+    private static final RowMapper<StockEvent> STOCK_EVENT_ROW_MAPPER = (rs, rowNum) -> {
+        StockEvent event = new StockEvent();
+        event.setId(rs.getLong("id"));
+        event.setItemId(rs.getObject("item_id", UUID.class));
+        event.setQuantity(rs.getLong("quantity"));
+        event.setVersion(rs.getLong("version"));
+        event.setDeleted(rs.getBoolean("deleted"));
+        event.setTxId(rs.getLong("tx_id"));
+        event.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+        return event;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void recordChanges(Collection<UUID> itemIds) {
+        jdbcTemplate.update(RECORD_CHANGES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", itemIds.toArray())));
+    }
+
+    @Override
+    public long findTxHorizon() {
+        return jdbcTemplate.queryForObject(TX_HORIZON_SQL, Long.class);
+    }
+
+    @Override
+    public List<StockEvent> findCommitted(long afterTxId, long afterId, long txHorizon, int limit) {
+        return jdbcTemplate.query(FIND_COMMITTED_SQL, STOCK_EVENT_ROW_MAPPER, afterTxId, afterId, txHorizon, limit);
+    }
+
+    @Override
+    public int deleteCreatedBefore(Instant createdBefore) {
+        return jdbcTemplate.update(DELETE_CREATED_BEFORE_SQL, Timestamp.from(createdBefore));
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, UUID>, StockHoldRepositoryCustom {
+}
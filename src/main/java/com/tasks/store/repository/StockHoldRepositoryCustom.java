@@ -0,0 +1,42 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockHold;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds are ended by deleting them, so of a confirmation, a release and the expiry racing for a hold exactly one
+ * gets it back and settles its stock.
+ */
+public interface StockHoldRepositoryCustom {
+
+    /**
+     * Deletes a hold unless it has expired by the given time.
+     *
+     * @param now time of the caller's clock, the one holds expire by, see {@link #deleteExpired(Collection, Instant)}
+     */
+    Optional<StockHold> deleteActive(UUID id, Instant now);
+
+    /**
+     * Deletes a hold, expired or not.
+     */
+    Optional<StockHold> deleteAnyById(UUID id);
+
+    /**
+     * Deletes those of the given holds that expired by the given time.
+     *
+     * @param now time of the caller's clock, so holds it found due are not kept by a database clock lagging behind
+     */
+    List<StockHold> deleteExpired(Collection<UUID> ids, Instant now);
+
+    /**
+     * Deletes the holds that expired first by the given time, using the expiry index. Holds locked by a running
+     * confirmation or release are skipped.
+     */
+    List<StockHold> deleteExpired(int limit, Instant now);
+
+}
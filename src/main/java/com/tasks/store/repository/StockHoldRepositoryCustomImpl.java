@@ -0,0 +1,69 @@
+package com.tasks.store.repository;
+
+import com.tasks.store.model.StockHold;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class StockHoldRepositoryCustomImpl implements StockHoldRepositoryCustom {
+
+    private static final String RETURNING = " RETURNING id, item_id, quantity, unit_price, expires_at, created_at";
+
+    private static final String DELETE_ACTIVE_SQL = "DELETE FROM store_schema.stock_hold "
+            + "WHERE id = ? AND expires_at > ?" + RETURNING;
+
+    private static final String DELETE_SQL = "DELETE FROM store_schema.stock_hold WHERE id = ?" + RETURNING;
+
+    private static final String DELETE_EXPIRED_BY_ID_SQL = "DELETE FROM store_schema.stock_hold "
+            + "WHERE id = ANY (?) AND expires_at <= ?" + RETURNING;
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM store_schema.stock_hold WHERE id IN ("
+            + "SELECT id FROM store_schema.stock_hold WHERE expires_at <= ? ORDER BY expires_at LIMIT ? "
+            + "FOR UPDATE SKIP LOCKED)" + RETURNING;
+
+    private static final RowMapper<StockHold> STOCK_HOLD_ROW_MAPPER = (rs, rowNum) -> {
+        StockHold hold = new StockHold();
+        hold.setId(rs.getObject("id", UUID.class));
+        hold.setItemId(rs.getObject("item_id", UUID.class));
+        hold.setQuantity(rs.getLong("quantity"));
+        hold.setUnitPrice(rs.getBigDecimal("unit_price"));
+        hold.setExpiresAt(rs.getTimestamp("expires_at").toInstant());
+        hold.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+        return hold;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<StockHold> deleteActive(UUID id, Instant now) {
+        return jdbcTemplate.query(DELETE_ACTIVE_SQL, STOCK_HOLD_ROW_MAPPER, id, Timestamp.from(now)).stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<StockHold> deleteAnyById(UUID id) {
+        return jdbcTemplate.query(DELETE_SQL, STOCK_HOLD_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public List<StockHold> deleteExpired(Collection<UUID> ids, Instant now) {
+        return jdbcTemplate.query(DELETE_EXPIRED_BY_ID_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray()));
+            ps.setTimestamp(2, Timestamp.from(now));
+        }, STOCK_HOLD_ROW_MAPPER);
+    }
+
+    @Override
+    public List<StockHold> deleteExpired(int limit, Instant now) {
+        return jdbcTemplate.query(DELETE_EXPIRED_SQL, STOCK_HOLD_ROW_MAPPER, Timestamp.from(now), limit);
+    }
+
+}
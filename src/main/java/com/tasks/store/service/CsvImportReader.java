@@ -0,0 +1,61 @@
+package com.tasks.store.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time, including quoted fields with separators, quotes and line breaks.
+ */
+class CsvImportReader {
+
+    private final Reader reader;
+    private int next;
+
+    CsvImportReader(Reader reader) throws IOException {
+        this.reader = reader;
+        this.next = reader.read();
+    }
+
+    /**
+     * @return fields of the next record, or null at the end of input
+     */
+    List<String> readRecord() throws IOException {
+        while (next == '\r' || next == '\n') {
+            next = reader.read();
+        }
+        if (next < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (next >= 0) {
+            int c = next;
+            next = reader.read();
+            if (quoted) {
+                if (c == '"' && next == '"') {
+                    field.append('"');
+                    next = reader.read();
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+}
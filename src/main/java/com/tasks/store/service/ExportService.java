@@ -0,0 +1,102 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.model.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streams sales and items straight from a server-side cursor to the response, so memory use does not depend on
+ * the number of exported rows. The read-only transaction backing the cursor lives only while rows are written.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String[] ITEM_COLUMNS = {"id", "name", "price", "quantity"};
+    private static final String[] SALE_COLUMNS = {"id", "itemId", "quantitySold", "createdAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    public void exportItems(ExportFormat format, OutputStream out) {
+        export("SELECT id, name, price, quantity FROM store_schema.item WHERE is_deleted = false",
+                List.of(), ITEM_COLUMNS, format, out);
+    }
+
+    /**
+     * Exports sales, optionally of a single item and within [from, to). Sales of a single item are ordered by
+     * creation time; a full export is returned in table order to avoid sorting the whole table.
+     */
+    public void exportSales(UUID itemId, Instant from, Instant to, ExportFormat format, OutputStream out) {
+        StringBuilder sql = new StringBuilder("SELECT id, item_id, quantity_sold, created_at FROM store_schema.sale WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (itemId != null) {
+            sql.append(" AND item_id = ?");
+            args.add(itemId);
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.from(to));
+        }
+        if (itemId != null) {
+            sql.append(" ORDER BY created_at, id");
+        }
+        export(sql.toString(), args, SALE_COLUMNS, format, out);
+    }
+
+    private void export(String sql, List<Object> args, String[] columns, ExportFormat format, OutputStream out) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (ExportWriter writer = ExportWriter.create(format, columns, out, objectMapper)) {
+                Object[] values = new Object[columns.length];
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(FETCH_SIZE);
+                    for (int i = 0; i < args.size(); i++) {
+                        statement.setObject(i + 1, args.get(i));
+                    }
+                    return statement;
+                }, resultSet -> {
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = resultSet.getObject(i + 1);
+                        values[i] = value instanceof Timestamp timestamp ? timestamp.toInstant() : value;
+                    }
+                    try {
+                        writer.writeRow(values);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.model.ExportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes export rows to an output stream one at a time, without buffering the result set.
+ */
+interface ExportWriter extends Closeable {
+
+    void writeRow(Object[] values) throws IOException;
+
+    static ExportWriter create(ExportFormat format, String[] columns, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonExportWriter(columns, out, objectMapper);
+            case CSV -> new CsvExportWriter(columns, out);
+        };
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tasks.store.config.ReplicaRouting;
+import com.tasks.store.config.StoreIdempotencyProperties;
+import com.tasks.store.error.IdempotencyKeyReusedException;
+import com.tasks.store.error.InvalidIdempotencyKeyException;
+import com.tasks.store.model.IdempotencyKey;
+import com.tasks.store.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Runs create and sell requests at most once per {@code Idempotency-Key} and replays the stored result on retries.
+ * <p>
+ * The key is claimed by a conditional insert at the start of the request's own transaction and its result stored at
+ * the end, so the request only runs once the key is known to be free. Retries reaching the same instance are answered
+ * from memory. Any other retry finds the key taken, which also waits for a request still in flight, and replays the
+ * stored result without running the request again. Failed requests roll back their claim, store nothing and may be
+ * retried.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final StoreIdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, IdempotencyKey> recentKeys;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, StoreIdempotencyProperties properties,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalCacheSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    /**
+     * @param key     idempotency key sent by the client
+     * @param request description of the request, e.g. method, path and body, that must match on every retry
+     * @param action  the request itself; joins the transaction that stores its result
+     */
+    public <T> T execute(String key, String request, Class<T> resultType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+
+        IdempotencyKey recent = recentKeys.getIfPresent(key);
+        if (recent != null) {
+            return replay(recent, requestHash, resultType);
+        }
+
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setId(key);
+        stored.setRequestHash(requestHash);
+        try {
+            T result = transactionTemplate.execute(status -> {
+                if (!idempotencyKeyRepository.claim(key, requestHash, properties.getTtl())) {
+                    throw new KeyTakenException();
+                }
+                T value = action.get();
+                stored.setResponse(write(value));
+                idempotencyKeyRepository.storeResponse(key, stored.getResponse());
+                return value;
+            });
+            recentKeys.put(key, stored);
+            return result;
+        } catch (KeyTakenException e) {
+            // The key was just found taken on the primary, a replica may not have it yet
+            Optional<IdempotencyKey> existing = ReplicaRouting.onPrimary(() -> idempotencyKeyRepository.findById(key));
+            if (existing.isEmpty()) {
+                // Expired and removed in the meantime
+                return execute(key, request, resultType, action);
+            }
+            recentKeys.put(key, existing.get());
+            return replay(existing.get(), requestHash, resultType);
+        }
+    }
+
+    /**
+     * Removes expired keys, then the keys closest to expiry beyond the configured maximum.
+     *
+     * @return number of keys removed
+     */
+    @Scheduled(fixedDelayString = "${store.idempotency.cleanup-interval}",
+            initialDelayString = "${store.idempotency.cleanup-interval}")
+    public int removeExpiredKeys() {
+        int removed = idempotencyKeyRepository.deleteExpired() + idempotencyKeyRepository.trimTo(properties.getMaxKeys());
+        if (removed > 0) {
+            log.info("Removed {} idempotency keys", removed);
+        }
+        return removed;
+    }
+
+    private <T> T replay(IdempotencyKey stored, String requestHash, Class<T> resultType) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(stored.getId());
+        }
+        if (stored.getResponse() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(stored.getResponse(), resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response of idempotency key " + stored.getId() + " is unreadable", e);
+        }
+    }
+
+    private String write(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored", e);
+        }
+    }
+
+    private static String hash(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ends the transaction of a request whose key is already taken.
+     */
+    private static class KeyTakenException extends RuntimeException {
+
+        KeyTakenException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.config.CacheConfig;
+import com.tasks.store.error.InvalidImportException;
+import com.tasks.store.mapper.ItemMapper;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ImportErrorDto;
+import com.tasks.store.model.ImportReportDto;
+import com.tasks.store.model.Item;
+import com.tasks.store.repository.ItemRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the item catalog from a streamed CSV or JSON array. Rows are validated one by one and upserted by name in
+ * batches, each batch in its own transaction; a failing row is reported instead of failing the whole load. Each batch
+ * writes the stock changes of its items to the stock change outbox.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ImportService {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String HELD_STOCK_ERROR = "Quantity must cover the units held by open reservations";
+
+    private final ItemRepository itemRepository;
+    private final ItemMapper itemMapper;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheManager cacheManager;
+    private final StockChangePublisher stockChangePublisher;
+    private final Validator validator;
+
+    public ImportReportDto importJson(InputStream in) throws IOException {
+        ItemImport itemImport = new ItemImport();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidImportException("Expected a JSON array of items");
+            }
+            long row = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw itemImport.abort("Unexpected end of the JSON array after row " + row);
+                }
+                row++;
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    itemImport.add(row, objectMapper.treeToValue(node, CreateItemDto.class));
+                } catch (JsonProcessingException e) {
+                    itemImport.reject(row, e.getOriginalMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw itemImport.abort("Malformed JSON: " + e.getOriginalMessage());
+        }
+        return itemImport.finish();
+    }
+
+    public ImportReportDto importCsv(InputStream in) throws IOException {
+        ItemImport itemImport = new ItemImport();
+        CsvImportReader reader = new CsvImportReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            throw new InvalidImportException("Expected a CSV header with name, price and quantity columns");
+        }
+        int nameColumn = header.indexOf("name");
+        int priceColumn = header.indexOf("price");
+        int quantityColumn = header.indexOf("quantity");
+        if (nameColumn < 0 || priceColumn < 0 || quantityColumn < 0) {
+            throw new InvalidImportException("Expected a CSV header with name, price and quantity columns");
+        }
+
+        long row = 0;
+        for (List<String> fields = reader.readRecord(); fields != null; fields = reader.readRecord()) {
+            row++;
+            if (fields.size() != header.size()) {
+                itemImport.reject(row, "Expected " + header.size() + " fields but got " + fields.size());
+                continue;
+            }
+            try {
+                CreateItemDto dto = new CreateItemDto();
+                dto.setName(fields.get(nameColumn));
+                dto.setPrice(new BigDecimal(fields.get(priceColumn).trim()));
+                dto.setQuantity(Long.parseLong(fields.get(quantityColumn).trim()));
+                itemImport.add(row, dto);
+            } catch (NumberFormatException e) {
+                itemImport.reject(row, "Price and quantity must be numbers");
+            }
+        }
+        return itemImport.finish();
+    }
+
+    /**
+     * Checks the row against the constraints of {@link CreateItemDto}, the ones the API applies to added items.
+     *
+     * @return the violations, null when the row is valid
+     */
+    private String validate(CreateItemDto dto) {
+        Set<ConstraintViolation<CreateItemDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private class ItemImport {
+
+        private final ImportReportDto report = new ImportReportDto();
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        private final List<Item> batch = new ArrayList<>(BATCH_SIZE);
+        private final List<Long> batchRows = new ArrayList<>(BATCH_SIZE);
+        private final Set<String> batchNames = new HashSet<>();
+
+        void add(long row, CreateItemDto dto) {
+            report.setProcessed(report.getProcessed() + 1);
+            String error = validate(dto);
+            if (error != null) {
+                addError(row, error);
+                return;
+            }
+            // a batch may not upsert the same name twice, so the later row goes into the next batch
+            if (!batchNames.add(dto.getName())) {
+                flush();
+                batchNames.add(dto.getName());
+            }
+            batch.add(itemMapper.toItem(dto));
+            batchRows.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            report.setProcessed(report.getProcessed() + 1);
+            addError(row, message);
+        }
+
+        ImportReportDto finish() {
+            flush();
+            return report;
+        }
+
+        /**
+         * Upserts the rows read before a malformed part of the input, so everything before it is imported rather than
+         * the batches that happened to be full.
+         */
+        InvalidImportException abort(String message) {
+            flush();
+            return new InvalidImportException(
+                    message + " (" + report.getUpserted() + " items before it were imported)");
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsert(batch));
+                report.setUpserted(report.getUpserted() + batch.size());
+            } catch (DataAccessException | InvalidImportException e) {
+                for (int i = 0; i < batch.size(); i++) {
+                    List<Item> single = List.of(batch.get(i));
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> upsert(single));
+                        report.setUpserted(report.getUpserted() + 1);
+                    } catch (DataAccessException rowException) {
+                        addError(batchRows.get(i), rowException.getMostSpecificCause().getMessage());
+                    } catch (InvalidImportException rowException) {
+                        addError(batchRows.get(i), rowException.getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            batchRows.clear();
+            batchNames.clear();
+            // Cleared per batch, so items of committed batches are not served stale if a later part of the load fails
+            cacheManager.getCache(CacheConfig.ITEMS).clear();
+            cacheManager.getCache(CacheConfig.STOCK).clear();
+        }
+
+        private void upsert(List<Item> items) {
+            List<UUID> ids = itemRepository.upsertAllByName(items);
+            // An item left unchanged has more units held than the row's quantity; the batch is rolled back and retried
+            // row by row, so only that row fails
+            if (ids.size() < items.size()) {
+                throw new InvalidImportException(HELD_STOCK_ERROR);
+            }
+            stockChangePublisher.recordChanges(ids);
+        }
+
+        private void addError(long row, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add(new ImportErrorDto(row, message));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreSalePartitionProperties;
+import com.tasks.store.repository.ReactiveSaleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the monthly sale partitions on the reactive stack, as {@link SalePartitionService} does on the servlet stack,
+ * so sales of a reactive-only deployment do not pile up in the default partition. Archiving and removing expired
+ * partitions streams them with the JDBC copy API and is left to servlet instances.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveSalePartitionService {
+
+    private final ReactiveSaleRepository saleRepository;
+    private final StoreSalePartitionProperties properties;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Runs on the scheduler thread, so it may block.
+     */
+    @Scheduled(fixedDelayString = "${store.sale-partitions.maintenance-interval}")
+    public void maintainPartitions() {
+        try {
+            createPartitions().block();
+        } catch (DataAccessException e) {
+            log.warn("Maintaining sale partitions failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of partitions created
+     */
+    public Mono<Integer> createPartitions() {
+        return saleRepository.tryLockPartitions()
+                .flatMap(locked -> locked ? createPlannedPartitions() : Mono.just(0))
+                .as(transactionalOperator::transactional)
+                .doOnNext(created -> {
+                    if (created > 0) {
+                        log.info("Created {} sale partitions", created);
+                    }
+                });
+    }
+
+    private Mono<Integer> createPlannedPartitions() {
+        return saleRepository.findPartitions()
+                .collectList()
+                .map(partitions -> SalePartitionService.plan(partitions, properties.getPremadeMonths()))
+                .flatMap(planned -> Flux.fromIterable(planned)
+                        .concatMap(partition -> saleRepository.createPartition(partition.name(), partition.from(),
+                                partition.to()))
+                        .then(Mono.just(planned.size())));
+    }
+
+}
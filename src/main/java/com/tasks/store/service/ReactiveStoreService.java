@@ -0,0 +1,237 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreStockEventsProperties;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.mapper.ItemMapper;
+import com.tasks.store.mapper.SaleMapper;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemRow;
+import com.tasks.store.model.OrderLineDto;
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.SaleCursor;
+import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.SaleRow;
+import com.tasks.store.model.UuidV7Generator;
+import com.tasks.store.repository.ReactiveItemRepository;
+import com.tasks.store.repository.ReactiveSaleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link StoreService}, active with the {@code reactive} profile. Follows the same stock
+ * rules: sells take the stock with a conditional update, so the item row is never read and written back. Stock changes
+ * are written to the same outbox as on the servlet stack, so its stock change streams include them.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveStoreService {
+
+    private static final String SALES_METRIC = "store.sales";
+
+    private final ReactiveItemRepository itemRepository;
+    private final ReactiveSaleRepository saleRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ItemMapper itemMapper;
+    private final SaleMapper saleMapper;
+    private final MeterRegistry meterRegistry;
+    private final StoreStockEventsProperties stockEventsProperties;
+
+    @Transactional
+    public Mono<ItemDto> addItem(CreateItemDto createItemDto) {
+        ItemRow item = itemMapper.toItemRow(createItemDto);
+        item.setId(UuidV7Generator.next());
+
+        return entityTemplate.insert(item).map(itemMapper::toItemDto);
+    }
+
+    @Transactional
+    public Mono<ItemDto> updateItem(UUID itemId, CreateItemDto createItemDto) {
+        return itemRepository.lockById(itemId)
+                .switchIfEmpty(Mono.error(() -> new ItemNotFoundException(itemId)))
+                // The item exists, so nothing updated means the new stock would not cover its held units
+                .flatMap(id -> itemRepository.updateDetails(itemId, createItemDto.getName(), createItemDto.getPrice(),
+                                createItemDto.getQuantity())
+                        .switchIfEmpty(Mono.error(() -> new InsufficientStockException(itemId))))
+                .flatMap(item -> itemRepository.recordStockChange(itemId).thenReturn(item))
+                .map(itemMapper::toItemDto);
+    }
+
+    @Transactional
+    public Mono<Void> deleteItem(UUID itemId) {
+        return itemRepository.markAsDeleted(itemId)
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new ItemNotFoundException(itemId))
+                        : itemRepository.recordStockChange(itemId).then());
+    }
+
+    public Mono<ItemDto> getItem(UUID itemId) {
+        return itemRepository.findActiveById(itemId)
+                .switchIfEmpty(Mono.error(() -> new ItemNotFoundException(itemId)))
+                .map(itemMapper::toItemDto);
+    }
+
+    public Mono<Page<ItemDto>> getAllItems(Pageable pageable) {
+        return itemRepository.findByIsDeletedFalse(pageable)
+                .map(itemMapper::toItemDto)
+                .collectList()
+                .zipWith(itemRepository.countByIsDeletedFalse(),
+                        (content, total) -> new PageImpl<>(content, pageable, total));
+    }
+
+    public Mono<CursorPageDto<ItemDto>> getAllItemsAfter(UUID cursor, Pageable pageable) {
+        int size = pageable.getPageSize();
+        Flux<ItemRow> items = cursor == null
+                ? itemRepository.findActiveFirst(size + 1)
+                : itemRepository.findActiveAfter(cursor, size + 1);
+
+        return items.map(itemMapper::toItemDto)
+                .collectList()
+                .map(rows -> {
+                    List<ItemDto> content = rows.stream().limit(size).toList();
+                    String nextCursor = rows.size() > size ? content.get(size - 1).getId().toString() : null;
+                    return new CursorPageDto<>(content, nextCursor);
+                });
+    }
+
+    @Transactional
+    public Mono<Void> sellItem(UUID itemId, long quantity) {
+        if (quantity < 1) {
+            return Mono.error(new InvalidQuantityException(quantity));
+        }
+        return takeStock(itemId, quantity)
+                .flatMap(price -> insertSale(itemId, quantity, price))
+                .flatMap(sale -> itemRepository.recordStockChange(itemId))
+                .doOnSuccess(recorded -> meterRegistry.counter(SALES_METRIC).increment())
+                .then();
+    }
+
+    @Transactional
+    public Mono<Void> sellItems(CreateOrderDto createOrderDto) {
+        StoreService.checkQuantities(createOrderDto);
+        // Sorted by id, so concurrent orders lock the item rows in the same order
+        Map<UUID, Long> quantities = createOrderDto.getLines().stream()
+                .collect(Collectors.toMap(OrderLineDto::getItemId, OrderLineDto::getQuantity, Long::sum, TreeMap::new));
+
+        return Flux.fromIterable(quantities.entrySet())
+                .concatMap(line -> takeStock(line.getKey(), line.getValue())
+                        .flatMap(price -> insertSale(line.getKey(), line.getValue(), price))
+                        .flatMap(sale -> itemRepository.recordStockChange(line.getKey())))
+                .count()
+                .doOnNext(count -> meterRegistry.counter(SALES_METRIC).increment(count))
+                .then();
+    }
+
+    public Mono<Page<SaleDto>> getSoldItems(UUID itemId, Pageable pageable) {
+        return saleRepository.findByItemId(itemId, pageable)
+                .collectList()
+                .flatMap(sales -> toSaleDtos(itemId, sales))
+                .zipWith(saleRepository.countByItemId(itemId),
+                        (content, total) -> new PageImpl<>(content, pageable, total));
+    }
+
+    public Mono<CursorPageDto<SaleDto>> getSoldItemsBefore(UUID itemId, String cursor, Pageable pageable) {
+        int size = pageable.getPageSize();
+        Flux<SaleRow> sales;
+        if (cursor == null || cursor.isEmpty()) {
+            sales = saleRepository.findLatestByItemId(itemId, size + 1);
+        } else {
+            SaleCursor position = SaleCursor.decode(cursor);
+            sales = saleRepository.findByItemIdBefore(itemId, position.getCreatedAt(), position.getId(), size + 1);
+        }
+
+        return sales.collectList()
+                .flatMap(rows -> {
+                    String nextCursor = rows.size() > size ? SaleCursor.of(rows.get(size - 1)).encode() : null;
+                    return toSaleDtos(itemId, rows.stream().limit(size).toList())
+                            .map(content -> new CursorPageDto<>(content, nextCursor));
+                });
+    }
+
+    public Mono<Long> getStockQuantity(UUID itemId) {
+        return itemRepository.findActiveById(itemId)
+                .switchIfEmpty(Mono.error(() -> new ItemNotFoundException(itemId)))
+                .map(ItemRow::getQuantity);
+    }
+
+    /**
+     * Removes stock events past the retention, as {@link StockChangePublisher#removeOldEvents()} does on the servlet
+     * stack. Runs on the scheduler thread, so it may block.
+     *
+     * @return number of events removed
+     */
+    @Scheduled(fixedDelayString = "${store.stock-events.cleanup-interval}",
+            initialDelayString = "${store.stock-events.cleanup-interval}")
+    public int removeOldStockEvents() {
+        return itemRepository.deleteStockEventsCreatedBefore(
+                Instant.now().minus(stockEventsProperties.getRetention())).block();
+    }
+
+    /**
+     * @return price of the item at the time of the sale
+     */
+    private Mono<BigDecimal> takeStock(UUID itemId, long quantity) {
+        return itemRepository.decrementQuantity(itemId, quantity)
+                .switchIfEmpty(stockError(itemId));
+    }
+
+    private Mono<BigDecimal> stockError(UUID itemId) {
+        return itemRepository.existsActiveById(itemId)
+                .flatMap(exists -> Mono.error(exists
+                        ? new InsufficientStockException(itemId)
+                        : new ItemNotFoundException(itemId)));
+    }
+
+    private Mono<SaleRow> insertSale(UUID itemId, long quantity, BigDecimal price) {
+        SaleRow sale = new SaleRow();
+        sale.setId(UuidV7Generator.next());
+        sale.setItemId(itemId);
+        sale.setQuantitySold(quantity);
+        sale.setUnitPrice(price);
+        sale.setCreatedAt(Instant.now());
+        sale.setRolledUp(true);
+        BigDecimal revenue = price.multiply(BigDecimal.valueOf(quantity));
+
+        return entityTemplate.insert(sale)
+                .flatMap(saved -> saleRepository.addToSalesTotal(itemId, quantity, revenue))
+                .thenMany(Flux.fromArray(RollupGranularity.values()))
+                .concatMap(granularity -> saleRepository.addToRollup(granularity.name(), itemId,
+                        granularity.bucketStart(sale.getCreatedAt()), quantity, revenue))
+                .then(Mono.just(sale));
+    }
+
+    /**
+     * All sales of a page belong to the same item, so it is loaded once instead of once per sale.
+     */
+    private Mono<List<SaleDto>> toSaleDtos(UUID itemId, List<SaleRow> sales) {
+        if (sales.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return itemRepository.findById(itemId)
+                .map(item -> sales.stream().map(sale -> saleMapper.toSaleDto(sale, item)).toList());
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreSalePartitionProperties;
+import com.tasks.store.model.SalePartition;
+import com.tasks.store.repository.SaleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the sale table partitioned by month of creation. Partitions are created a few months ahead, and partitions
+ * whose sales are all past the retention are archived and dropped, or only detached, which is far cheaper than
+ * deleting their rows. Their sales are added to the archived totals first, so the sales totals can still be rebuilt.
+ * Every step runs in its own transaction holding an advisory lock, so instances never maintain partitions at the same
+ * time. On the reactive stack {@link ReactiveSalePartitionService} creates the partitions instead.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class SalePartitionService {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'sale_p'yyyy_MM");
+
+    private final SaleRepository saleRepository;
+    private final StoreSalePartitionProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    @Scheduled(fixedDelayString = "${store.sale-partitions.maintenance-interval}")
+    public void maintainPartitions() {
+        try {
+            createPartitions();
+            removeExpiredPartitions();
+        } catch (DataAccessException | UncheckedIOException e) {
+            log.warn("Maintaining sale partitions failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the monthly partitions {@link #plan planned} from the existing ones, moving their sales out of the
+     * default partition.
+     *
+     * @return number of partitions created
+     */
+    public int createPartitions() {
+        Integer created = new TransactionTemplate(transactionManager).execute(status -> {
+            if (!saleRepository.tryLockPartitions()) {
+                return 0;
+            }
+            List<NewPartition> partitions = plan(saleRepository.findPartitions(), properties.getPremadeMonths());
+            partitions.forEach(partition -> saleRepository.createPartition(partition.name(), partition.from(),
+                    partition.to()));
+            return partitions.size();
+        });
+        if (created != null && created > 0) {
+            log.info("Created {} sale partitions", created);
+        }
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Archives or detaches the partitions whose sales are all older than the retention, each in its own transaction.
+     *
+     * @return number of partitions removed
+     */
+    public int removeExpiredPartitions() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        List<String> expired = saleRepository.findPartitions().stream()
+                .filter(partition -> partition.getUpperBound() != null)
+                .filter(partition -> !partition.getUpperBound().isAfter(cutoff))
+                .map(SalePartition::getName)
+                .toList();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int removed = 0;
+        for (String partition : expired) {
+            Boolean removedPartition = transactionTemplate.execute(status -> {
+                if (!saleRepository.tryLockPartitions()) {
+                    return false;
+                }
+                // Dropping and detaching wait for sells on the sale table, and new sells queue behind them
+                saleRepository.setLockTimeout(properties.getLockTimeout());
+                saleRepository.addToArchivedTotals(partition);
+                if (properties.isArchive()) {
+                    archive(partition);
+                    saleRepository.dropPartition(partition);
+                } else {
+                    saleRepository.detachPartition(partition);
+                    log.info("Detached sale partition {}", partition);
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(removedPartition)) {
+                break;
+            }
+            removed++;
+        }
+        return removed;
+    }
+
+    private void archive(String partition) {
+        Path archiveDir = properties.getArchiveDir();
+        Path file = archiveDir.resolve(partition + ".csv.gz");
+        Path partial = archiveDir.resolve(partition + ".csv.gz.partial");
+        try {
+            Files.createDirectories(archiveDir);
+            long sales;
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial))) {
+                sales = saleRepository.copyPartition(partition, out);
+            }
+            // Only a complete archive gets the final name, the partition is dropped after that
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Archived {} sales of partition {} to {}", sales, partition, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plans the monthly partitions following the last one or the start of the current month, up to the premade months
+     * after the current month. Months already past without a partition stay without one, their sales remain in the
+     * default partition.
+     */
+    static List<NewPartition> plan(List<SalePartition> partitions, int premadeMonths) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth until = current.plusMonths(premadeMonths);
+        Instant from = partitions.stream()
+                .map(SalePartition::getUpperBound)
+                .filter(Objects::nonNull)
+                .filter(upperBound -> upperBound.isAfter(startOf(current)))
+                .max(Instant::compareTo)
+                .orElseGet(() -> startOf(current));
+        List<NewPartition> planned = new ArrayList<>();
+        for (YearMonth month = monthOf(from); !month.isAfter(until); month = month.plusMonths(1)) {
+            // A partition may end within a month, the next one then starts there
+            Instant to = startOf(month.plusMonths(1));
+            planned.add(new NewPartition(month.format(PARTITION_NAME), from, to));
+            from = to;
+        }
+        return planned;
+    }
+
+    private static YearMonth monthOf(Instant instant) {
+        return YearMonth.from(instant.atZone(ZoneOffset.UTC));
+    }
+
+    private static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    record NewPartition(String name, Instant from, Instant to) {
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreRollupProperties;
+import com.tasks.store.error.InvalidTimeRangeException;
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.SalesBucketDto;
+import com.tasks.store.repository.SaleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Serves sales time series from the hourly and daily rollups. Sells add to the buckets in their own transaction;
+ * sales recorded any other way are rolled up by the catch-up job.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final SaleRepository saleRepository;
+    private final StoreRollupProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    public List<SalesBucketDto> getRollups(RollupGranularity granularity, UUID itemId, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidTimeRangeException(from, to, "from must be before to");
+        }
+        Instant start = granularity.bucketStart(from);
+        long buckets = granularity.getUnit().between(start, to);
+        if (buckets > properties.getMaxBuckets()) {
+            throw new InvalidTimeRangeException(from, to,
+                    "spans " + buckets + " buckets, at most " + properties.getMaxBuckets() + " are allowed");
+        }
+
+        return saleRepository.findRollups(granularity, itemId, start, to);
+    }
+
+    /**
+     * Rolls up late sales in batches, each in its own transaction, until the backlog is drained.
+     *
+     * @return number of sales rolled up
+     */
+    @Scheduled(fixedDelayString = "${store.rollup.catch-up-interval}",
+            initialDelayString = "${store.rollup.catch-up-interval}")
+    public long catchUpRollups() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int batchSize = properties.getCatchUpBatchSize();
+        long total = 0;
+        int rolledUp;
+        do {
+            rolledUp = transactionTemplate.execute(status -> saleRepository.catchUpRollups(batchSize));
+            total += rolledUp;
+        } while (rolledUp == batchSize);
+
+        if (total > 0) {
+            log.info("Caught up rollups of {} sales", total);
+        }
+        return total;
+    }
+
+}
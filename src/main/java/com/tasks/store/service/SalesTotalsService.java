@@ -0,0 +1,65 @@
+package com.tasks.store.service;
+
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.mapper.SalesTotalMapper;
+import com.tasks.store.model.ItemSalesTotal;
+import com.tasks.store.model.SalesTotalDto;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the running sales totals that {@link StoreService} maintains on every sale.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class SalesTotalsService {
+
+    static final int MAX_TOP_SELLERS = 100;
+
+    private final ItemSalesTotalRepository itemSalesTotalRepository;
+    private final ItemRepository itemRepository;
+    private final SalesTotalMapper salesTotalMapper;
+
+    @Transactional(readOnly = true)
+    public SalesTotalDto getSalesTotal(UUID itemId) {
+        ItemSalesTotal total = itemSalesTotalRepository.findByActiveItemId(itemId)
+                .orElseGet(() -> {
+                    // Items without sales have no totals row yet
+                    ItemSalesTotal empty = new ItemSalesTotal();
+                    empty.setItem(itemRepository.findById(itemId)
+                            .filter(item -> !item.isDeleted())
+                            .orElseThrow(() -> new ItemNotFoundException(itemId)));
+                    return empty;
+                });
+
+        return salesTotalMapper.toSalesTotalDto(total);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SalesTotalDto> getTopSellers(int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_TOP_SELLERS));
+
+        return itemSalesTotalRepository.findTopSellers(PageRequest.of(0, size)).stream()
+                .map(salesTotalMapper::toSalesTotalDto)
+                .toList();
+    }
+
+    @Transactional
+    public int rebuildSalesTotals() {
+        int items = itemSalesTotalRepository.rebuild();
+        log.info("Rebuilt sales totals of {} items", items);
+        return items;
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreSellCoalescingProperties;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.SellTimeoutException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for sells of hot items. Concurrent sells of the same item are collected for a short window, or until the
+ * batch is full, and applied by {@link StoreService#sellItemBatch} in one transaction, so the item's row lock is taken
+ * once per batch instead of once per sell. Each caller still gets its own outcome: only the sells exceeding the
+ * remaining stock fail with {@link InsufficientStockException}.
+ * <p>
+ * When coalescing is disabled every sell runs in its own transaction as before.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class SellCoalescer {
+
+    private final StoreService storeService;
+    private final StoreSellCoalescingProperties properties;
+    private final DistributionSummary batchSizes;
+    private final Map<UUID, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sell-coalescer").daemon().factory());
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SellCoalescer(StoreService storeService, StoreSellCoalescingProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.storeService = storeService;
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder("store.sell.batch.size")
+                .description("Sells applied together by the sell coalescer")
+                .register(meterRegistry);
+    }
+
+    public void sellItem(UUID itemId, long quantity) {
+        if (quantity < 1) {
+            throw new InvalidQuantityException(quantity);
+        }
+        if (!properties.isEnabled()) {
+            storeService.sellItem(itemId, quantity);
+            return;
+        }
+
+        try {
+            enqueue(itemId, quantity).get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new SellTimeoutException(itemId, properties.getTimeout());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the sell of item " + itemId, e);
+        }
+    }
+
+    CompletableFuture<Void> enqueue(UUID itemId, long quantity) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Batch[] full = new Batch[1];
+        openBatches.compute(itemId, (id, batch) -> {
+            if (batch == null) {
+                Batch opened = new Batch(id);
+                scheduler.schedule(() -> close(opened), properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+                batch = opened;
+            }
+            batch.quantities.add(quantity);
+            batch.results.add(result);
+            if (batch.quantities.size() < properties.getMaxBatchSize()) {
+                return batch;
+            }
+            full[0] = batch;
+            return null;
+        });
+        if (full[0] != null) {
+            batchExecutor.execute(() -> apply(full[0]));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        openBatches.values().forEach(this::close);
+        batchExecutor.close();
+    }
+
+    private void close(Batch batch) {
+        // A batch that filled up has already been removed and applied
+        if (openBatches.remove(batch.itemId, batch)) {
+            batchExecutor.execute(() -> apply(batch));
+        }
+    }
+
+    private void apply(Batch batch) {
+        batchSizes.record(batch.quantities.size());
+        try {
+            boolean[] accepted = storeService.sellItemBatch(batch.itemId, batch.quantities);
+            for (int i = 0; i < accepted.length; i++) {
+                if (accepted[i]) {
+                    batch.results.get(i).complete(null);
+                } else {
+                    batch.results.get(i).completeExceptionally(new InsufficientStockException(batch.itemId));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Sells of item {} failed: {}", batch.itemId, e.getMessage());
+            batch.results.forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Sells of one item in arrival order. Only modified while open, under the lock of its entry in openBatches.
+     */
+    private static class Batch {
+
+        private final UUID itemId;
+        private final List<Long> quantities = new ArrayList<>();
+        private final List<CompletableFuture<Void>> results = new ArrayList<>();
+
+        Batch(UUID itemId) {
+            this.itemId = itemId;
+        }
+
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreStockEventsProperties;
+import com.tasks.store.model.StockChangeDto;
+import com.tasks.store.model.StockEvent;
+import com.tasks.store.repository.StockEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams committed stock changes to subscribers through a transactional outbox. Stock changes write an event in
+ * their own transaction, so only committed changes are ever published.
+ * <p>
+ * A single poller reads the outbox in transaction order, right after a local commit and every poll interval for
+ * changes committed by other instances. It only reads events of transactions older than every running one, so an
+ * event can neither be rolled back nor show up behind the read position later. Each subscriber has its own bounded
+ * buffer holding the latest change per item and is sent to on a virtual thread, so neither the sell path nor other
+ * subscribers wait for a slow client; a subscriber whose buffer is full is disconnected.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class StockChangePublisher {
+
+    static final String EVENT_NAME = "stock";
+
+    private final StockEventRepository stockEventRepository;
+    private final StoreStockEventsProperties properties;
+    private final Counter disconnectedSubscribers;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("stock-change-poller").daemon().factory());
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Read position in the outbox, only used by the poller thread; a negative transaction id until the first poll
+    private long lastTxId = -1;
+    private long lastId;
+
+    public StockChangePublisher(StockEventRepository stockEventRepository, StoreStockEventsProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.stockEventRepository = stockEventRepository;
+        this.properties = properties;
+        this.disconnectedSubscribers = Counter.builder("store.stock.subscribers.disconnected")
+                .description("Stock change subscribers disconnected for falling behind")
+                .register(meterRegistry);
+        Gauge.builder("store.stock.subscribers", subscribers, Set::size)
+                .description("Open stock change streams")
+                .register(meterRegistry);
+        poller.scheduleWithFixedDelay(this::poll, 0, properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the current stock of the items in the outbox, in the transaction that changed them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<UUID> itemIds) {
+        stockEventRepository.recordChanges(itemIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestPoll();
+            }
+        });
+    }
+
+    /**
+     * @param itemIds items to receive changes of, all items if empty
+     */
+    public SseEmitter subscribe(Set<UUID> itemIds) {
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = subscribe(itemIds,
+                change -> emitter.send(SseEmitter.event().name(EVENT_NAME).data(change, MediaType.APPLICATION_JSON)),
+                emitter::complete);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    Subscriber subscribe(Set<UUID> itemIds, ChangeSender sender, Runnable onDisconnect) {
+        Subscriber subscriber = new Subscriber(Set.copyOf(itemIds), sender, onDisconnect);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Removes events past the retention; every instance has read them by then.
+     *
+     * @return number of events removed
+     */
+    @Scheduled(fixedDelayString = "${store.stock-events.cleanup-interval}",
+            initialDelayString = "${store.stock-events.cleanup-interval}")
+    public int removeOldEvents() {
+        return stockEventRepository.deleteCreatedBefore(Instant.now().minus(properties.getRetention()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.onDisconnect.run());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    private void requestPoll() {
+        if (!subscribers.isEmpty() && pollRequested.compareAndSet(false, true)) {
+            poller.execute(this::poll);
+        }
+    }
+
+    private void poll() {
+        pollRequested.set(false);
+        try {
+            long txHorizon = stockEventRepository.findTxHorizon();
+            if (lastTxId < 0 || subscribers.isEmpty()) {
+                // Nobody to send the events of ended transactions to
+                lastTxId = txHorizon;
+                lastId = 0;
+                return;
+            }
+
+            int batchSize = properties.getPollBatchSize();
+            List<StockEvent> events;
+            do {
+                events = stockEventRepository.findCommitted(lastTxId, lastId, txHorizon, batchSize);
+                if (events.isEmpty()) {
+                    return;
+                }
+                StockEvent last = events.get(events.size() - 1);
+                lastTxId = last.getTxId();
+                lastId = last.getId();
+                publish(events);
+            } while (events.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Reading stock events failed: {}", e.getMessage());
+        }
+    }
+
+    private void publish(List<StockEvent> events) {
+        // Transactions are read in id order, not commit order, so a later change of an item may come first
+        Map<UUID, StockChangeDto> changes = new LinkedHashMap<>();
+        for (StockEvent event : events) {
+            changes.merge(event.getItemId(),
+                    new StockChangeDto(event.getItemId(), event.getQuantity(), event.getVersion(), event.isDeleted()),
+                    StockChangePublisher::latest);
+        }
+        for (Subscriber subscriber : subscribers) {
+            for (StockChangeDto change : changes.values()) {
+                if (subscriber.itemIds.isEmpty() || subscriber.itemIds.contains(change.getItemId())) {
+                    subscriber.offer(change);
+                }
+            }
+        }
+    }
+
+    private static StockChangeDto latest(StockChangeDto a, StockChangeDto b) {
+        return b.getVersion() > a.getVersion() ? b : a;
+    }
+
+    @FunctionalInterface
+    interface ChangeSender {
+
+        void send(StockChangeDto change) throws IOException;
+
+    }
+
+    /**
+     * Changes not yet sent to one client, at most one per item.
+     */
+    final class Subscriber {
+
+        private final Set<UUID> itemIds;
+        private final ChangeSender sender;
+        private final Runnable onDisconnect;
+        private final Map<UUID, StockChangeDto> pending = new LinkedHashMap<>();
+        private boolean sending;
+        private boolean disconnected;
+
+        private Subscriber(Set<UUID> itemIds, ChangeSender sender, Runnable onDisconnect) {
+            this.itemIds = itemIds;
+            this.sender = sender;
+            this.onDisconnect = onDisconnect;
+        }
+
+        private void offer(StockChangeDto change) {
+            synchronized (this) {
+                if (disconnected) {
+                    return;
+                }
+                StockChangeDto queued = pending.get(change.getItemId());
+                if (queued != null) {
+                    pending.put(change.getItemId(), latest(queued, change));
+                } else if (pending.size() < properties.getSubscriberBufferSize()) {
+                    pending.put(change.getItemId(), change);
+                } else {
+                    disconnect();
+                    return;
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            senders.execute(this::send);
+        }
+
+        private void send() {
+            while (true) {
+                StockChangeDto change;
+                synchronized (this) {
+                    Iterator<StockChangeDto> next = pending.values().iterator();
+                    if (disconnected || !next.hasNext()) {
+                        sending = false;
+                        return;
+                    }
+                    change = next.next();
+                    next.remove();
+                }
+                try {
+                    sender.send(change);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Stock change stream closed: {}", e.getMessage());
+                    unsubscribe(this);
+                    return;
+                }
+            }
+        }
+
+        private void disconnect() {
+            log.debug("Disconnecting stock change subscriber with {} unsent changes", pending.size());
+            disconnected = true;
+            pending.clear();
+            unsubscribe(this);
+            disconnectedSubscribers.increment();
+            // Closing waits for a send in progress, which must not hold up the poller
+            senders.execute(onDisconnect);
+        }
+
+    }
+
+}
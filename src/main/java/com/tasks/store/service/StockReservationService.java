@@ -0,0 +1,216 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.CacheConfig;
+import com.tasks.store.config.StoreReservationProperties;
+import com.tasks.store.error.HoldNotFoundException;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.mapper.SaleMapper;
+import com.tasks.store.model.HoldDto;
+import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.StockHold;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import com.tasks.store.repository.StockHoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reserves stock for a checkout without keeping a transaction open while the customer pays. Reserving takes the
+ * quantity from the item in one conditional update, like a sell, and records a hold; item quantities therefore always
+ * show the stock still available. Confirming turns the hold into a sale, releasing or expiry gives the stock back.
+ * Each step is a short transaction of its own.
+ * <p>
+ * Expiries are tracked in a timing wheel, which releases the holds of this instance within a tick of their expiry
+ * without querying for them. A periodic sweep over the expiry index releases the remaining ones, e.g. of instances that
+ * stopped before their holds expired.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class StockReservationService {
+
+    private final ItemRepository itemRepository;
+    private final StockHoldRepository stockHoldRepository;
+    private final SaleRepository saleRepository;
+    private final ItemSalesTotalRepository itemSalesTotalRepository;
+    private final SaleMapper saleMapper;
+    private final StockChangePublisher stockChangePublisher;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final StoreReservationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredHolds;
+    private final TimingWheel<UUID> expiries;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("stock-hold-expiry").daemon().factory());
+
+    public StockReservationService(ItemRepository itemRepository, StockHoldRepository stockHoldRepository,
+                                   SaleRepository saleRepository, ItemSalesTotalRepository itemSalesTotalRepository,
+                                   SaleMapper saleMapper, StockChangePublisher stockChangePublisher,
+                                   CacheManager cacheManager, MeterRegistry meterRegistry,
+                                   StoreReservationProperties properties,
+                                   PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.stockHoldRepository = stockHoldRepository;
+        this.saleRepository = saleRepository;
+        this.itemSalesTotalRepository = itemSalesTotalRepository;
+        this.saleMapper = saleMapper;
+        this.stockChangePublisher = stockChangePublisher;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expiredHolds = Counter.builder("store.holds.expired")
+                .description("Stock holds released because they were not confirmed in time")
+                .register(meterRegistry);
+        this.expiries = new TimingWheel<>(properties.getTick(), properties.getWheelSize(), Instant.now());
+        long tickMillis = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::releaseDueHolds, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public HoldDto reserve(UUID itemId, long quantity) {
+        if (quantity < 1) {
+            throw new InvalidQuantityException(quantity);
+        }
+        HoldDto hold = transactionTemplate.execute(status -> {
+            BigDecimal price = itemRepository.decrementQuantity(itemId, quantity).orElseThrow(() -> {
+                if (!itemRepository.existsActiveById(itemId)) {
+                    return new ItemNotFoundException(itemId);
+                }
+                return new InsufficientStockException(itemId);
+            });
+            stockChangePublisher.recordChanges(List.of(itemId));
+
+            StockHold stockHold = new StockHold();
+            stockHold.setItemId(itemId);
+            stockHold.setQuantity(quantity);
+            stockHold.setUnitPrice(price);
+            stockHold.setExpiresAt(Instant.now().plus(properties.getHoldTtl()));
+            stockHoldRepository.save(stockHold);
+            return new HoldDto(stockHold.getId(), itemId, quantity, stockHold.getUnitPrice(),
+                    stockHold.getExpiresAt());
+        });
+        cacheManager.getCache(CacheConfig.ITEMS).evict(itemId);
+        expiries.schedule(hold.getId(), hold.getExpiresAt());
+        return hold;
+    }
+
+    /**
+     * Records the sale of a hold that has not expired yet, at the price it was reserved at. Its stock was already
+     * taken when reserving.
+     */
+    public SaleDto confirm(UUID holdId) {
+        return transactionTemplate.execute(status -> {
+            // Expired by the clock the timing wheel releases holds by, so a hold is never both confirmed and released
+            StockHold hold = stockHoldRepository.deleteActive(holdId, Instant.now())
+                    .orElseThrow(() -> new HoldNotFoundException(holdId));
+
+            Sale sale = new Sale();
+            sale.setItem(itemRepository.getReferenceById(hold.getItemId()));
+            sale.setQuantitySold(hold.getQuantity());
+            sale.setUnitPrice(hold.getUnitPrice());
+            sale.setRolledUp(true);
+            // Flushed so the creation time that picks the rollup buckets is set
+            saleRepository.saveAndFlush(sale);
+            itemSalesTotalRepository.addSales(List.of(sale));
+            saleRepository.addToRollups(List.of(sale));
+            meterRegistry.counter(StoreService.SALES_METRIC).increment();
+
+            return saleMapper.toSaleDto(sale);
+        });
+    }
+
+    /**
+     * Ends a hold without a sale and gives its stock back.
+     */
+    public void release(UUID holdId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            StockHold hold = stockHoldRepository.deleteAnyById(holdId)
+                    .orElseThrow(() -> new HoldNotFoundException(holdId));
+            returnStock(List.of(hold));
+        });
+    }
+
+    /**
+     * Releases expired holds by expiry, in batches of their own transaction, until none are left.
+     *
+     * @return number of holds released
+     */
+    @Scheduled(fixedDelayString = "${store.reservations.sweep-interval}",
+            initialDelayString = "${store.reservations.sweep-interval}")
+    public long releaseExpiredHolds() {
+        int batchSize = properties.getSweepBatchSize();
+        long total = 0;
+        int released;
+        do {
+            released = transactionTemplate.execute(status -> returnStock(
+                    stockHoldRepository.deleteExpired(batchSize, Instant.now())));
+            expiredHolds.increment(released);
+            total += released;
+        } while (released == batchSize);
+
+        if (total > 0) {
+            log.info("Released {} expired holds missed by the timing wheel", total);
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void releaseDueHolds() {
+        Instant now = Instant.now();
+        List<UUID> due = expiries.advance(now);
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            // Holds confirmed or released in the meantime are no longer found
+            int released = transactionTemplate.execute(status -> returnStock(stockHoldRepository.deleteExpired(due, now)));
+            expiredHolds.increment(released);
+        } catch (RuntimeException e) {
+            log.warn("Releasing {} expired holds failed, the sweep will retry: {}", due.size(), e.getMessage());
+        }
+    }
+
+    private int returnStock(List<StockHold> holds) {
+        if (holds.isEmpty()) {
+            return 0;
+        }
+        // Updated in id order like multi-item sells, so concurrent batches cannot deadlock
+        SortedMap<UUID, Long> quantities = holds.stream()
+                .collect(Collectors.toMap(StockHold::getItemId, StockHold::getQuantity, Long::sum, TreeMap::new));
+        itemRepository.incrementQuantities(quantities);
+        stockChangePublisher.recordChanges(quantities.keySet());
+        Cache items = cacheManager.getCache(CacheConfig.ITEMS);
+        quantities.keySet().forEach(items::evict);
+        return holds.size();
+    }
+
+}
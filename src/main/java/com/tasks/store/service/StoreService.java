@@ -1,35 +1,83 @@
 package com.tasks.store.service;
 
+import com.tasks.store.config.CacheConfig;
+import com.tasks.store.config.ReplicaRouting;
 import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidBatchLookupException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.InvalidSearchQueryException;
 import com.tasks.store.error.ItemNotFoundException;
 import com.tasks.store.mapper.ItemMapper;
 import com.tasks.store.mapper.SaleMapper;
 import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
 import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemBatchDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemField;
+import com.tasks.store.model.ItemSalesPageDto;
+import com.tasks.store.model.ItemVersionDto;
+import com.tasks.store.model.OrderLineDto;
 import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleCursor;
 import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.StockBatchDto;
+import com.tasks.store.model.StockDto;
 import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
 import com.tasks.store.repository.SaleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class StoreService {
 
+    static final String SALES_METRIC = "store.sales";
+    private static final int MIN_SIMILARITY_QUERY_LENGTH = 3;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 255;
+    private static final int MAX_BATCH_LOOKUP_IDS = 500;
+
     private final ItemRepository itemRepository;
     private final SaleRepository saleRepository;
+    private final ItemSalesTotalRepository itemSalesTotalRepository;
     private final ItemMapper itemMapper;
     private final SaleMapper saleMapper;
+    private final StockChangePublisher stockChangePublisher;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public ItemDto addItem(CreateItemDto createItemDto) {
@@ -39,68 +87,324 @@ public class StoreService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId"),
+            @CacheEvict(cacheNames = CacheConfig.STOCK, key = "#itemId")
+    })
     public ItemDto updateItem(UUID itemId, CreateItemDto createItemDto) {
-        return itemRepository.findById(itemId)
-                .map(item -> {
-                    item.setName(createItemDto.getName());
-                    item.setPrice(createItemDto.getPrice());
-                    item.setQuantity(createItemDto.getQuantity());
-                    return itemMapper.toItemDto(itemRepository.save(item));
-                })
-                .orElseThrow(() -> new ItemNotFoundException(itemId));
+        // Locked first, so the update subtracts every hold reserved before it; updated in a single statement, so
+        // sells committed since the client read the item neither fail it nor are overwritten by a stale version
+        if (itemRepository.findByIdForUpdate(itemId).isEmpty()) {
+            throw new ItemNotFoundException(itemId);
+        }
+        // The item exists, so nothing updated means the new stock would not cover its held units
+        if (itemRepository.updateDetails(itemId, createItemDto.getName(), createItemDto.getPrice(),
+                createItemDto.getQuantity()) == 0) {
+            throw new InsufficientStockException(itemId);
+        }
+        stockChangePublisher.recordChanges(List.of(itemId));
+        return itemRepository.findDtoById(itemId).orElseThrow(() -> new ItemNotFoundException(itemId));
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId"),
+            @CacheEvict(cacheNames = CacheConfig.STOCK, key = "#itemId")
+    })
     public void deleteItem(UUID itemId) {
         if (!itemRepository.existsById(itemId)) {
             throw new ItemNotFoundException(itemId);
         }
         itemRepository.markAsDeleted(itemId);
+        stockChangePublisher.recordChanges(List.of(itemId));
     }
 
+    /**
+     * Reads from the primary: the result fills the shared cache right after a change evicted it, and a lagging replica
+     * would put the old item back until it expires.
+     */
+    @Cacheable(cacheNames = CacheConfig.ITEMS)
+    @Transactional(readOnly = true)
     public ItemDto getItem(UUID itemId) {
-        Item item = itemRepository.findById(itemId)
+        Item item = ReplicaRouting.onPrimary(() -> itemRepository.findById(itemId))
                 .filter(product -> !product.isDeleted())
                 .orElseThrow(() -> new ItemNotFoundException(itemId));
 
         return itemMapper.toItemDto(item);
     }
 
+    /**
+     * Reads only the version of an item, to answer conditional requests without loading and mapping the item. Reads
+     * from the primary, so a client is not told an item it has just changed is unmodified.
+     */
+    @Transactional(readOnly = true)
+    public Long getItemVersion(UUID itemId) {
+        return ReplicaRouting.onPrimary(() -> itemRepository.findActiveVersionById(itemId))
+                .orElseThrow(() -> new ItemNotFoundException(itemId));
+    }
+
+    @Transactional(readOnly = true)
     public Page<ItemDto> getAllItems(Pageable pageable) {
-        List<ItemDto> items = itemRepository.findAll(pageable).stream()
-                .filter(item -> !item.isDeleted())
+        return itemRepository.findAllActive(pageable).map(itemMapper::toItemDto);
+    }
+
+    /**
+     * Reads only the ids and versions of a page of items, to answer conditional requests for the page.
+     */
+    @Transactional(readOnly = true)
+    public Page<ItemVersionDto> getAllItemVersions(Pageable pageable) {
+        return itemRepository.findAllActiveVersions(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<ItemDto> getAllItemsAfter(UUID cursor, Pageable pageable) {
+        int size = pageable.getPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Item> items = cursor == null
+                ? itemRepository.findActiveFirst(limit)
+                : itemRepository.findActiveAfter(cursor, limit);
+
+        List<ItemDto> content = items.stream()
+                .limit(size)
                 .map(itemMapper::toItemDto)
                 .toList();
+        String nextCursor = items.size() > size ? content.get(size - 1).getId().toString() : null;
+
+        return new CursorPageDto<>(content, nextCursor);
+    }
+
+    /**
+     * Searches active items by name. Queries shorter than {@value #MIN_SIMILARITY_QUERY_LENGTH} characters match name
+     * prefixes only, longer ones also substrings and similar names, e.g. with a typo. Returns a slice without a total,
+     * which would have to count every match.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ItemDto> searchItems(String query, Pageable pageable) {
+        String trimmed = query == null ? "" : query.strip();
+        if (trimmed.isEmpty() || trimmed.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new InvalidSearchQueryException(query, "must be 1 to " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+
+        int size = pageable.getPageSize();
+        List<ItemDto> items = trimmed.length() < MIN_SIMILARITY_QUERY_LENGTH
+                ? itemRepository.searchByNamePrefix(trimmed, pageable.getOffset(), size + 1)
+                : itemRepository.searchByNameSimilarity(trimmed, pageable.getOffset(), size + 1);
+        boolean hasNext = items.size() > size;
 
-        return new PageImpl<>(items);
+        return new SliceImpl<>(hasNext ? items.subList(0, size) : items, pageable, hasNext);
+    }
+
+    /**
+     * Looks up items by id in a single query instead of one per item, bypassing the item cache. Items are limited to
+     * the given fields, e.g. {@code quantity}, or have all fields if none are given. Duplicate ids are answered once.
+     */
+    @Transactional(readOnly = true)
+    public ItemBatchDto getItems(List<UUID> ids, List<String> fields) {
+        return itemRepository.findBatch(distinctIds(ids), parseFields(fields));
+    }
+
+    /**
+     * Looks up the stock of items by id in a single query.
+     */
+    @Transactional(readOnly = true)
+    public StockBatchDto getStocks(List<UUID> ids) {
+        ItemBatchDto batch = itemRepository.findBatch(distinctIds(ids), EnumSet.of(ItemField.QUANTITY));
+        Map<UUID, Long> stock = new LinkedHashMap<>();
+        batch.getItems().forEach(item -> stock.put(item.getId(), item.getQuantity()));
+        return new StockBatchDto(stock, batch.getNotFound(), batch.getDeleted());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId")
     public void sellItem(UUID itemId, long quantity) {
-        Item item = itemRepository.findById(itemId)
-                .filter(product -> !product.isDeleted())
-                .orElseThrow(() -> new ItemNotFoundException(itemId));
+        if (quantity < 1) {
+            throw new InvalidQuantityException(quantity);
+        }
+        BigDecimal price = itemRepository.decrementQuantity(itemId, quantity).orElseThrow(() -> {
+            if (!itemRepository.existsActiveById(itemId)) {
+                return new ItemNotFoundException(itemId);
+            }
+            return new InsufficientStockException(itemId);
+        });
+        stockChangePublisher.recordChanges(List.of(itemId));
+        Sale sale = newSale(itemRepository.getReferenceById(itemId), price, quantity);
 
-        if (item.getQuantity() < quantity) {
-            throw new InsufficientStockException(itemId);
+        // Flushed so the creation time that picks the rollup buckets is set
+        saleRepository.saveAndFlush(sale);
+        itemSalesTotalRepository.addSales(List.of(sale));
+        saleRepository.addToRollups(List.of(sale));
+        meterRegistry.counter(SALES_METRIC).increment();
+    }
+
+    @Transactional
+    public void sellItems(CreateOrderDto createOrderDto) {
+        checkQuantities(createOrderDto);
+        SortedMap<UUID, Long> quantities = createOrderDto.getLines().stream()
+                .collect(Collectors.toMap(OrderLineDto::getItemId, OrderLineDto::getQuantity, Long::sum, TreeMap::new));
+
+        int[] updated = itemRepository.decrementQuantities(quantities);
+        int i = 0;
+        for (UUID itemId : quantities.keySet()) {
+            if (updated[i++] == 0) {
+                if (!itemRepository.existsActiveById(itemId)) {
+                    throw new ItemNotFoundException(itemId);
+                }
+                throw new InsufficientStockException(itemId);
+            }
         }
-        item.setQuantity(item.getQuantity() - quantity);
-        Sale sale = new Sale();
-        sale.setItem(item);
-        sale.setQuantitySold(quantity);
+        stockChangePublisher.recordChanges(quantities.keySet());
 
-        saleRepository.save(sale);
+        Map<UUID, Item> soldItems = itemRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Sale> sales = new ArrayList<>(quantities.size());
+        for (Map.Entry<UUID, Long> line : quantities.entrySet()) {
+            Item item = soldItems.get(line.getKey());
+            sales.add(newSale(item, item.getPrice(), line.getValue()));
+        }
+
+        saleRepository.saveAllAndFlush(sales);
+        itemSalesTotalRepository.addSales(sales);
+        saleRepository.addToRollups(sales);
+        meterRegistry.counter(SALES_METRIC).increment(sales.size());
+        Cache items = cacheManager.getCache(CacheConfig.ITEMS);
+        quantities.keySet().forEach(items::evict);
+    }
+
+    /**
+     * Applies several sells of one item with a single stock update and one batch of sale inserts, holding the item's
+     * row lock once instead of once per sell. Sells are accepted in order while stock remains; a sell exceeding the
+     * remaining stock is rejected without affecting the others.
+     *
+     * @return whether each sell was accepted
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId")
+    public boolean[] sellItemBatch(UUID itemId, List<Long> quantities) {
+        Item item = itemRepository.findActiveByIdForUpdate(itemId).orElseThrow(() -> new ItemNotFoundException(itemId));
+
+        boolean[] accepted = new boolean[quantities.size()];
+        long remaining = item.getQuantity();
+        List<Sale> sales = new ArrayList<>(quantities.size());
+        for (int i = 0; i < quantities.size(); i++) {
+            long quantity = quantities.get(i);
+            if (quantity < 1) {
+                throw new InvalidQuantityException(quantity);
+            }
+            if (quantity <= remaining) {
+                remaining -= quantity;
+                accepted[i] = true;
+                sales.add(newSale(item, item.getPrice(), quantity));
+            }
+        }
+        if (sales.isEmpty()) {
+            return accepted;
+        }
+
+        item.setQuantity(remaining);
+        item.setVersion(item.getVersion() + 1);
+        saleRepository.saveAllAndFlush(sales);
+        stockChangePublisher.recordChanges(List.of(itemId));
+        itemSalesTotalRepository.addSales(sales);
+        saleRepository.addToRollups(sales);
+        meterRegistry.counter(SALES_METRIC).increment(sales.size());
+        return accepted;
     }
 
+    @Transactional(readOnly = true)
     public Page<SaleDto> getSoldItems(UUID itemId, Pageable pageable) {
         return saleRepository.findByItemId(itemId, pageable).map(saleMapper::toSaleDto);
     }
 
-    public Long getStockQuantity(UUID itemId) {
-        return itemRepository.findById(itemId)
-                .filter(item -> !item.isDeleted())
-                .map(Item::getQuantity)
+    /**
+     * Lean variant of {@link #getSoldItems}: the item is read once per page and sales are projected into DTOs, so a
+     * page costs the item lookup, the sales query and the count query, whatever its size.
+     */
+    @Transactional(readOnly = true)
+    public ItemSalesPageDto getSoldItemsLean(UUID itemId, Pageable pageable) {
+        ItemDto item = itemRepository.findDtoById(itemId).orElseThrow(() -> new ItemNotFoundException(itemId));
+
+        return new ItemSalesPageDto(item, saleRepository.findLinesByItemId(itemId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<SaleDto> getSoldItemsBefore(UUID itemId, String cursor, Pageable pageable) {
+        int size = pageable.getPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Sale> sales;
+        if (cursor == null || cursor.isEmpty()) {
+            sales = saleRepository.findLatestByItemId(itemId, limit);
+        } else {
+            SaleCursor position = SaleCursor.decode(cursor);
+            sales = saleRepository.findByItemIdBefore(itemId, position.getCreatedAt(), position.getId(), limit);
+        }
+
+        List<SaleDto> content = sales.stream()
+                .limit(size)
+                .map(saleMapper::toSaleDto)
+                .toList();
+        String nextCursor = sales.size() > size ? SaleCursor.of(sales.get(size - 1)).encode() : null;
+
+        return new CursorPageDto<>(content, nextCursor);
+    }
+
+    /**
+     * Reads from the primary, like {@link #getItem}, as the result fills the shared cache.
+     */
+    @Cacheable(cacheNames = CacheConfig.STOCK)
+    @Transactional(readOnly = true)
+    public StockDto getStock(UUID itemId) {
+        return ReplicaRouting.onPrimary(() -> itemRepository.findActiveStockById(itemId))
                 .orElseThrow(() -> new ItemNotFoundException(itemId));
     }
 
+    private static Set<UUID> distinctIds(List<UUID> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_LOOKUP_IDS) {
+            throw new InvalidBatchLookupException("must list 1 to " + MAX_BATCH_LOOKUP_IDS + " item ids");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidBatchLookupException("item ids must not be null");
+        }
+        return new LinkedHashSet<>(ids);
+    }
+
+    private static Set<ItemField> parseFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return EnumSet.allOf(ItemField.class);
+        }
+        Set<ItemField> parsed = EnumSet.noneOf(ItemField.class);
+        for (String field : fields) {
+            String name = field.strip();
+            // The id is always returned
+            if (name.equalsIgnoreCase("id")) {
+                continue;
+            }
+            try {
+                parsed.add(ItemField.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidBatchLookupException("unknown field " + field);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Rejects order lines that would add stock instead of taking it, the stock update only checks what remains.
+     */
+    static void checkQuantities(CreateOrderDto createOrderDto) {
+        for (OrderLineDto line : createOrderDto.getLines()) {
+            if (line.getQuantity() == null || line.getQuantity() < 1) {
+                throw new InvalidQuantityException(line.getQuantity());
+            }
+        }
+    }
+
+    private static Sale newSale(Item item, BigDecimal unitPrice, long quantity) {
+        Sale sale = new Sale();
+        sale.setItem(item);
+        sale.setQuantitySold(quantity);
+        sale.setUnitPrice(unitPrice);
+        sale.setRolledUp(true);
+        return sale;
+    }
+
 }
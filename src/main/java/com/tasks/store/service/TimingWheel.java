@@ -0,0 +1,71 @@
+package com.tasks.store.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: deadlines are hashed by tick into a fixed ring of slots, so scheduling is constant time and
+ * advancing by a tick only looks at one slot, instead of keeping a sorted queue or scanning everything pending.
+ * Deadlines more than a full turn ahead share their slot with nearer ones and are left there until their turn.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    // First tick not advanced past yet
+    private long currentTick;
+
+    TimingWheel(Duration tick, int size, Instant start) {
+        this.tickMillis = tick.toMillis();
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = start.toEpochMilli() / tickMillis;
+    }
+
+    /**
+     * Schedules a value to be returned by the first advance at or after the deadline, rounded up to the tick.
+     */
+    synchronized void schedule(T value, Instant deadline) {
+        long tick = Math.max(Math.ceilDiv(deadline.toEpochMilli(), tickMillis), currentTick);
+        slots.get(slotOf(tick)).add(new Entry<>(value, tick));
+    }
+
+    /**
+     * Removes and returns the values whose deadline has passed.
+     */
+    synchronized List<T> advance(Instant now) {
+        long nowTick = now.toEpochMilli() / tickMillis;
+        List<T> due = new ArrayList<>();
+        // After a pause longer than a turn every slot is visited once, collecting all overdue values
+        long lastTick = Math.min(nowTick, currentTick + slots.size() - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<Entry<T>> entries = slots.get(slotOf(tick)).iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.tick() <= nowTick) {
+                    due.add(entry.value());
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick + 1);
+        return due;
+    }
+
+    synchronized int size() {
+        return slots.stream().mapToInt(List::size).sum();
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    private record Entry<T>(T value, long tick) {
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.tasks.store.benchmark;
+
+import com.tasks.store.model.Item;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Item item() {
+        Item item = new Item();
+        item.setId(UUID.randomUUID());
+        item.setName("Benchmark item");
+        item.setPrice(new BigDecimal("19.99"));
+        item.setQuantity(100L);
+        return item;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.tasks.store.benchmark;
+
+import com.tasks.store.mapper.ItemMapper;
+import com.tasks.store.mapper.ItemMapperImpl;
+import com.tasks.store.mapper.SaleMapper;
+import com.tasks.store.mapper.SaleMapperImpl;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final ItemMapper itemMapper = new ItemMapperImpl();
+    private final SaleMapper saleMapper = new SaleMapperImpl();
+
+    private Item item;
+    private CreateItemDto createItemDto;
+    private Sale sale;
+
+    @Setup
+    public void setUp() {
+        item = BenchmarkData.item();
+        createItemDto = new CreateItemDto();
+        createItemDto.setName(item.getName());
+        createItemDto.setPrice(item.getPrice());
+        createItemDto.setQuantity(item.getQuantity());
+        sale = new Sale();
+        sale.setId(UUID.randomUUID());
+        sale.setItem(item);
+        sale.setQuantitySold(1L);
+        sale.setCreatedAt(Instant.now());
+    }
+
+    @Benchmark
+    public ItemDto toItemDto() {
+        return itemMapper.toItemDto(item);
+    }
+
+    @Benchmark
+    public Item toItem() {
+        return itemMapper.toItem(createItemDto);
+    }
+
+    @Benchmark
+    public SaleDto toSaleDto() {
+        return saleMapper.toSaleDto(sale);
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.tasks.store.benchmark;
+
+import com.tasks.store.Application;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.service.SellCoalescer;
+import com.tasks.store.service.StoreService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sells of a single hot item from many threads, one transaction per sell versus coalesced batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class SellCoalescingBenchmark {
+
+    @Param({"false", "true"})
+    private boolean coalescing;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private SellCoalescer sellCoalescer;
+    private UUID itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        new ResourceDatabasePopulator(
+                new ClassPathResource("sql/create_schema.sql"),
+                new ClassPathResource("sql/add_item_table.sql"),
+                new ClassPathResource("sql/add_sale_table.sql"),
+                new ClassPathResource("sql/add_item_sales_total_table.sql"),
+                new ClassPathResource("sql/add_sale_rollup_table.sql"),
+                new ClassPathResource("sql/add_idempotency_key_table.sql"),
+                new ClassPathResource("sql/add_stock_event_table.sql"),
+                new ClassPathResource("sql/add_stock_hold_table.sql"))
+                .execute(postgres.getPostgresDatabase());
+
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--store.sell-coalescing.enabled=" + coalescing);
+        sellCoalescer = context.getBean(SellCoalescer.class);
+
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Hot item");
+        createItemDto.setPrice(new BigDecimal("19.99"));
+        createItemDto.setQuantity((long) Integer.MAX_VALUE);
+        itemId = context.getBean(StoreService.class).addItem(createItemDto).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void sellHotItem() {
+        sellCoalescer.sellItem(itemId, 1L);
+    }
+
+}
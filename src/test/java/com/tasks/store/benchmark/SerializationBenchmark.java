@@ -0,0 +1,78 @@
+package com.tasks.store.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.mapper.ItemMapperImpl;
+import com.tasks.store.mapper.SaleMapper;
+import com.tasks.store.mapper.SaleMapperImpl;
+import com.tasks.store.model.Item;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ItemDto itemDto;
+    private Page<SaleDto> salePage;
+
+    @Setup
+    public void setUp() {
+        Item item = BenchmarkData.item();
+        itemDto = new ItemMapperImpl().toItemDto(item);
+
+        SaleMapper saleMapper = new SaleMapperImpl();
+        List<SaleDto> sales = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Sale sale = new Sale();
+            sale.setId(UUID.randomUUID());
+            sale.setItem(item);
+            sale.setQuantitySold(1L);
+            sale.setCreatedAt(Instant.now());
+            sales.add(saleMapper.toSaleDto(sale));
+        }
+        salePage = new PageImpl<>(sales, PageRequest.of(0, pageSize), pageSize * 10L);
+    }
+
+    @Benchmark
+    public byte[] serializeItemDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(itemDto);
+    }
+
+    @Benchmark
+    public byte[] serializeSalePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(salePage);
+    }
+
+}
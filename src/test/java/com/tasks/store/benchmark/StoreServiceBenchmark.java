@@ -0,0 +1,119 @@
+package com.tasks.store.benchmark;
+
+import com.tasks.store.Application;
+import com.tasks.store.config.CacheConfig;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.StockDto;
+import com.tasks.store.service.StoreService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the service hot paths against an embedded Postgres, including the JPA and JDBC round trips. The reads are
+ * measured with and without the item and stock caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StoreServiceBenchmark {
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private StoreService storeService;
+    private Cache itemCache;
+    private Cache stockCache;
+    private UUID itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        new ResourceDatabasePopulator(
+                new ClassPathResource("sql/create_schema.sql"),
+                new ClassPathResource("sql/add_item_table.sql"),
+                new ClassPathResource("sql/add_sale_table.sql"),
+                new ClassPathResource("sql/add_item_sales_total_table.sql"),
+                new ClassPathResource("sql/add_sale_rollup_table.sql"),
+                new ClassPathResource("sql/add_idempotency_key_table.sql"),
+                new ClassPathResource("sql/add_stock_event_table.sql"),
+                new ClassPathResource("sql/add_stock_hold_table.sql"))
+                .execute(postgres.getPostgresDatabase());
+
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres");
+        storeService = context.getBean(StoreService.class);
+        CacheManager cacheManager = context.getBean(CacheManager.class);
+        itemCache = cacheManager.getCache(CacheConfig.ITEMS);
+        stockCache = cacheManager.getCache(CacheConfig.STOCK);
+
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Benchmark item");
+        createItemDto.setPrice(new BigDecimal("19.99"));
+        createItemDto.setQuantity((long) Integer.MAX_VALUE);
+        itemId = storeService.addItem(createItemDto).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void sellItem() {
+        storeService.sellItem(itemId, 1L);
+    }
+
+    @Benchmark
+    public ItemDto getItem() {
+        // Evicted so the database read is measured, not a cache hit
+        itemCache.evict(itemId);
+        return storeService.getItem(itemId);
+    }
+
+    @Benchmark
+    public ItemDto getItemCached() {
+        return storeService.getItem(itemId);
+    }
+
+    @Benchmark
+    public StockDto getStock() {
+        stockCache.evict(itemId);
+        return storeService.getStock(itemId);
+    }
+
+    @Benchmark
+    public StockDto getStockCached() {
+        return storeService.getStock(itemId);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.tasks.store.benchmark;
+
+import com.tasks.store.model.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Inserts sale-shaped rows keyed by random and by time-ordered UUIDs into an embedded Postgres. Reports rows per
+ * second, and at the end of the trial prints the primary key index size per row, which grows with the page splits
+ * that random keys cause. The table keeps growing across iterations, so later iterations also show the effect of
+ * an index that no longer fits in cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO sale (id, item_id, quantity_sold) VALUES (?, ?, ?)";
+
+    @Param({"RANDOM", "V7"})
+    public String idType;
+
+    private EmbeddedPostgres postgres;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Supplier<UUID> ids;
+    private UUID itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = new SingleConnectionDataSource(
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE sale (id UUID PRIMARY KEY, item_id UUID NOT NULL, "
+                + "quantity_sold INTEGER NOT NULL, created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now())");
+        ids = "V7".equals(idType) ? UuidV7Generator::next : UUID::randomUUID;
+        itemId = UUID.randomUUID();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM sale", Long.class);
+        Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size('sale_pkey')", Long.class);
+        System.out.printf("%n%s ids: %d rows, primary key index %d KiB, %.1f bytes per row%n",
+                idType, rows, indexBytes / 1024, (double) indexBytes / rows);
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() {
+        List<Object[]> args = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            args.add(new Object[]{ids.get(), itemId, 1});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.tasks.store.config;
+
+import com.tasks.store.Application;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.service.StoreService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two independent embedded Postgres instances standing in for a primary and its replica, so which one
+ * answered a read shows in the data it sees.
+ */
+class ReplicaRoutingIntTest {
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+    private static ConfigurableApplicationContext context;
+    private static StoreService storeService;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+        for (EmbeddedPostgres postgres : new EmbeddedPostgres[]{primary, replica}) {
+            new ResourceDatabasePopulator(
+                    new ClassPathResource("sql/create_schema.sql"),
+                    new ClassPathResource("sql/add_item_table.sql"),
+                    new ClassPathResource("sql/add_sale_table.sql"),
+                    new ClassPathResource("sql/add_item_sales_total_table.sql"),
+                    new ClassPathResource("sql/add_sale_rollup_table.sql"),
+                    new ClassPathResource("sql/add_idempotency_key_table.sql"),
+                    new ClassPathResource("sql/add_stock_event_table.sql"),
+                    new ClassPathResource("sql/add_stock_hold_table.sql"))
+                    .execute(postgres.getPostgresDatabase());
+        }
+
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + primary.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--store.replicas.enabled=true",
+                        "--store.replicas.data-sources[0].url=" + replica.getJdbcUrl("postgres", "postgres"),
+                        "--store.replicas.data-sources[0].username=postgres",
+                        "--store.replicas.data-sources[0].password=postgres");
+        storeService = context.getBean(StoreService.class);
+        // Checked by the scheduler at startup too, but that may not have run yet
+        context.getBean(ReplicaRoutingDataSource.class).checkReplicas();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        context.close();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void whenReadingInReadOnlyTransaction_thenReplicaShouldAnswerUnlessPrimaryIsRequired() {
+        ItemDto item = storeService.addItem(createItemDto("Routed item"));
+
+        assertThat(storeService.getAllItems(PageRequest.of(0, 10))).isEmpty();
+        assertThat(ReplicaRouting.onPrimary(() -> storeService.getAllItems(PageRequest.of(0, 10))))
+                .extracting(ItemDto::getId).contains(item.getId());
+    }
+
+    @Test
+    void whenReplicaIsStale_thenCachedReadsShouldUsePrimary() {
+        ItemDto item = storeService.addItem(createItemDto("Cached item"));
+        // The replica still has the item as it was before a sell
+        new JdbcTemplate(replica.getPostgresDatabase()).update("INSERT INTO store_schema.item "
+                + "(id, name, price, quantity, version) VALUES (?, 'Cached item', 10.00, 99, 0)", item.getId());
+        storeService.sellItem(item.getId(), 1L);
+
+        assertThat(storeService.getItem(item.getId()).getQuantity()).isEqualTo(9L);
+        assertThat(storeService.getStock(item.getId()).getQuantity()).isEqualTo(9L);
+        assertThat(storeService.getItemVersion(item.getId())).isEqualTo(item.getVersion() + 1);
+    }
+
+    @Test
+    void whenReplicaIsNotCheckedYet_thenReadsShouldGoToPrimary() throws IOException {
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary.getPostgresDatabase(),
+                Map.of("replica", replica.getPostgresDatabase()), Duration.ofSeconds(5))) {
+            assertThat(readPort(routing)).isEqualTo(primary.getPort());
+
+            routing.checkReplicas();
+
+            assertThat(readPort(routing)).isEqualTo(replica.getPort());
+        }
+    }
+
+    @Test
+    void whenConnectingWithCredentials_thenConnectionShouldBeRouted() throws Exception {
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary.getPostgresDatabase(),
+                Map.of("replica", replica.getPostgresDatabase()), Duration.ofSeconds(5));
+             Connection connection = routing.getConnection("postgres", "postgres");
+             ResultSet port = connection.createStatement().executeQuery("SELECT current_setting('port')::int")) {
+            port.next();
+            assertThat(port.getInt(1)).isEqualTo(primary.getPort());
+        }
+    }
+
+    @Test
+    void whenReplicaLags_thenReadsShouldFallBackToPrimary() throws IOException {
+        // No lag is below a negative limit
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary.getPostgresDatabase(),
+                Map.of("replica", replica.getPostgresDatabase()), Duration.ofMillis(-1))) {
+            routing.checkReplicas();
+
+            assertThat(readPort(routing)).isEqualTo(primary.getPort());
+        }
+    }
+
+    @Test
+    void whenReplicaFails_thenReadsShouldFallBackToPrimary() throws IOException {
+        HikariDataSource unreachable = new HikariDataSource();
+        unreachable.setJdbcUrl("jdbc:postgresql://localhost:1/postgres");
+        unreachable.setConnectionTimeout(250);
+        unreachable.setInitializationFailTimeout(-1);
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary.getPostgresDatabase(),
+                Map.of("replica", unreachable), Duration.ofSeconds(5))) {
+            routing.checkReplicas();
+
+            assertThat(readPort(routing)).isEqualTo(primary.getPort());
+            assertThat(readPort(routing)).isEqualTo(primary.getPort());
+        }
+    }
+
+    private static int readPort(DataSource routing) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("SELECT current_setting('port')::int", Integer.class));
+    }
+
+    private static CreateItemDto createItemDto(String name) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setQuantity(10L);
+        return dto;
+    }
+
+}
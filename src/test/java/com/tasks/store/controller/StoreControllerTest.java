@@ -1,35 +1,69 @@
 package com.tasks.store.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.error.HoldNotFoundException;
+import com.tasks.store.error.IdempotencyKeyReusedException;
+import com.tasks.store.error.InvalidBatchLookupException;
+import com.tasks.store.error.InvalidCursorException;
+import com.tasks.store.error.InvalidSearchQueryException;
+import com.tasks.store.error.ItemNotFoundException;
 import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
+import com.tasks.store.model.HoldDto;
+import com.tasks.store.model.ItemBatchDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.ItemIdsDto;
+import com.tasks.store.model.ItemSalesPageDto;
+import com.tasks.store.model.ItemVersionDto;
+import com.tasks.store.model.OrderLineDto;
 import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.SaleLineDto;
+import com.tasks.store.model.StockDto;
+import com.tasks.store.service.IdempotencyService;
+import com.tasks.store.service.SellCoalescer;
+import com.tasks.store.service.StockChangePublisher;
+import com.tasks.store.service.StockReservationService;
 import com.tasks.store.service.StoreService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(StoreController.class)
+@Import(SimpleMeterRegistry.class)
 class StoreControllerTest {
 
     @Autowired
@@ -38,9 +72,24 @@ class StoreControllerTest {
     @MockBean
     private StoreService storeService;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private SellCoalescer sellCoalescer;
+
+    @MockBean
+    private StockChangePublisher stockChangePublisher;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void testAddItem() throws Exception {
         CreateItemDto createItemDto = new CreateItemDto();
@@ -56,6 +105,35 @@ class StoreControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void testAddItemWithTooPrecisePrice() throws Exception {
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Test Item");
+        createItemDto.setPrice(new BigDecimal("10.005"));
+        createItemDto.setQuantity(10L);
+
+        mockMvc.perform(post("/api/v1/store/item")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createItemDto)))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(storeService);
+    }
+
+    @Test
+    void testUpdateItemWithoutName() throws Exception {
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setPrice(new BigDecimal("20.0"));
+        createItemDto.setQuantity(5L);
+
+        mockMvc.perform(put("/api/v1/store/item/{itemId}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createItemDto)))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(storeService);
+    }
+
     @Test
     void testUpdateItem() throws Exception {
         UUID itemId = UUID.randomUUID();
@@ -85,15 +163,53 @@ class StoreControllerTest {
     @Test
     void testGetItem() throws Exception {
         UUID itemId = UUID.randomUUID();
-        CreateItemDto createItemDto = new CreateItemDto();
-        createItemDto.setName("Test Item");
-        createItemDto.setPrice(new BigDecimal("10.0"));
-        createItemDto.setQuantity(10L);
+        ItemDto itemDto = new ItemDto(itemId, "Test Item", new BigDecimal("10.0"), 10L, 3L);
 
-        Mockito.when(storeService.getItem(itemId)).thenReturn(Mockito.any(ItemDto.class));
+        Mockito.when(storeService.getItem(itemId)).thenReturn(itemDto);
 
         mockMvc.perform(get("/api/v1/store/item/{itemId}", itemId))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void testGetItemWhenNotModified() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        Mockito.when(storeService.getItemVersion(itemId)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}", itemId).header("If-None-Match", "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(storeService, Mockito.never()).getItem(itemId);
+    }
+
+    @Test
+    void testGetItemWhenModified() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        Mockito.when(storeService.getItemVersion(itemId)).thenReturn(3L);
+        Mockito.when(storeService.getItem(itemId))
+                .thenReturn(new ItemDto(itemId, "Test Item", new BigDecimal("10.0"), 9L, 3L));
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}", itemId).header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.quantity").value(9));
+    }
+
+    @Test
+    void testGetItemWhenItemDoesNotExist() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        double notFound = meterRegistry.counter("store.errors", "exception", "ItemNotFoundException").count();
+
+        Mockito.when(storeService.getItem(itemId)).thenThrow(new ItemNotFoundException(itemId));
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}", itemId))
+                .andExpect(status().isNotFound());
+        assertThat(meterRegistry.counter("store.errors", "exception", "ItemNotFoundException").count())
+                .isEqualTo(notFound + 1);
     }
 
     @Test
@@ -113,13 +229,186 @@ class StoreControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testGetAllItemsWhenNotModified() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        ItemDto itemDto = new ItemDto(itemId, "Test Item", new BigDecimal("10.0"), 10L, 3L);
+        Mockito.when(storeService.getAllItems(Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(itemDto)));
+        Mockito.when(storeService.getAllItemVersions(Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(new ItemVersionDto(itemId, 3L))));
+
+        String etag = mockMvc.perform(get("/api/v1/store/items").param("page", "0").param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/store/items").param("page", "0").param("size", "10")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        Mockito.verify(storeService, Mockito.times(1)).getAllItems(Mockito.any(PageRequest.class));
+
+        itemDto.setVersion(4L);
+        Mockito.when(storeService.getAllItemVersions(Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(new ItemVersionDto(itemId, 4L))));
+        mockMvc.perform(get("/api/v1/store/items").param("page", "0").param("size", "10")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAllItemsAfter() throws Exception {
+        UUID cursor = UUID.randomUUID();
+        CursorPageDto<ItemDto> page = new CursorPageDto<>(Collections.singletonList(new ItemDto()), null);
+
+        Mockito.when(storeService.getAllItemsAfter(Mockito.eq(cursor), Mockito.any(PageRequest.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/store/items")
+                        .param("cursor", cursor.toString())
+                        .param("size", "10"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testSearchItems() throws Exception {
+        ItemDto itemDto = new ItemDto(UUID.randomUUID(), "Blue Widget", new BigDecimal("10.00"), 5L, 0L);
+        Mockito.when(storeService.searchItems(Mockito.eq("widget"), Mockito.any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(itemDto), PageRequest.of(0, 10), true));
+
+        mockMvc.perform(get("/api/v1/store/items/search").param("query", "widget").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Blue Widget"))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    void testSearchItemsWithInvalidQuery() throws Exception {
+        Mockito.when(storeService.searchItems(Mockito.eq(" "), Mockito.any(PageRequest.class)))
+                .thenThrow(new InvalidSearchQueryException(" ", "must not be blank"));
+
+        mockMvc.perform(get("/api/v1/store/items/search").param("query", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetItemsInBatch() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        UUID deletedItemId = UUID.randomUUID();
+        ItemBatchDto batch = new ItemBatchDto();
+        batch.getItems().add(new ItemDto(itemId, null, null, 5L, null));
+        batch.getDeleted().add(deletedItemId);
+        Mockito.when(storeService.getItems(List.of(itemId, deletedItemId), List.of("quantity"))).thenReturn(batch);
+
+        mockMvc.perform(post("/api/v1/store/items/batch").param("fields", "quantity")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ItemIdsDto(List.of(itemId, deletedItemId)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].quantity").value(5))
+                .andExpect(jsonPath("$.items[0].name").doesNotExist())
+                .andExpect(jsonPath("$.deleted[0]").value(deletedItemId.toString()));
+    }
+
+    @Test
+    void testGetStocksInBatchWithTooManyIds() throws Exception {
+        Mockito.when(storeService.getStocks(Mockito.anyList()))
+                .thenThrow(new InvalidBatchLookupException("must list 1 to 500 item ids"));
+
+        mockMvc.perform(post("/api/v1/store/items/stock/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ItemIdsDto(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testSellItem() throws Exception {
         UUID itemId = UUID.randomUUID();
-        Mockito.doNothing().when(storeService).sellItem(itemId, 1L);
+        Mockito.doNothing().when(sellCoalescer).sellItem(itemId, 1L);
 
         mockMvc.perform(post("/api/v1/store/item/{itemId}/sale", itemId).param("quantity", "1"))
                 .andExpect(status().isOk());
+
+        Mockito.verify(sellCoalescer).sellItem(itemId, 1L);
+    }
+
+    @Test
+    void testReserveItem() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        UUID holdId = UUID.randomUUID();
+        Mockito.when(stockReservationService.reserve(itemId, 2L)).thenReturn(
+                new HoldDto(holdId, itemId, 2L, new BigDecimal("10.00"), Instant.now().plusSeconds(600)));
+
+        mockMvc.perform(post("/api/v1/store/item/{itemId}/hold", itemId).param("quantity", "2"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(holdId.toString()))
+                .andExpect(jsonPath("$.quantity").value(2));
+    }
+
+    @Test
+    void testConfirmHoldWhenHoldHasEnded() throws Exception {
+        UUID holdId = UUID.randomUUID();
+        Mockito.when(stockReservationService.confirm(holdId)).thenThrow(new HoldNotFoundException(holdId));
+
+        mockMvc.perform(post("/api/v1/store/holds/{holdId}/confirm", holdId))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/api/v1/store/holds/{holdId}", holdId))
+                .andExpect(status().isOk());
+        Mockito.verify(stockReservationService).release(holdId);
+    }
+
+    @Test
+    void testSellItemWithIdempotencyKey() throws Exception {
+        UUID itemId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/v1/store/item/{itemId}/sale", itemId).param("quantity", "1")
+                        .header("Idempotency-Key", "key-1"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(idempotencyService).execute(Mockito.eq("key-1"),
+                Mockito.eq("POST /item/" + itemId + "/sale?quantity=1"), Mockito.eq(Void.class), Mockito.any());
+        Mockito.verifyNoInteractions(storeService);
+    }
+
+    @Test
+    void testSellItemWithReusedIdempotencyKey() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        Mockito.when(idempotencyService.execute(Mockito.eq("key-1"), Mockito.anyString(), Mockito.eq(Void.class),
+                Mockito.any())).thenThrow(new IdempotencyKeyReusedException("key-1"));
+
+        mockMvc.perform(post("/api/v1/store/item/{itemId}/sale", itemId).param("quantity", "1")
+                        .header("Idempotency-Key", "key-1"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testSellItems() throws Exception {
+        OrderLineDto orderLineDto = new OrderLineDto();
+        orderLineDto.setItemId(UUID.randomUUID());
+        orderLineDto.setQuantity(2L);
+        CreateOrderDto createOrderDto = new CreateOrderDto();
+        createOrderDto.setLines(List.of(orderLineDto));
+
+        Mockito.doNothing().when(storeService).sellItems(Mockito.any(CreateOrderDto.class));
+
+        mockMvc.perform(post("/api/v1/store/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createOrderDto)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testSellItemsWithNegativeQuantity() throws Exception {
+        OrderLineDto orderLineDto = new OrderLineDto();
+        orderLineDto.setItemId(UUID.randomUUID());
+        orderLineDto.setQuantity(-5L);
+        CreateOrderDto createOrderDto = new CreateOrderDto();
+        createOrderDto.setLines(List.of(orderLineDto));
+
+        mockMvc.perform(post("/api/v1/store/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createOrderDto)))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(storeService);
     }
 
     @Test
@@ -135,13 +424,80 @@ class StoreControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testGetSoldItemsLean() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        ItemDto itemDto = new ItemDto(itemId, "ItemName", BigDecimal.TEN, 5L, 0L);
+        SaleLineDto saleLineDto = new SaleLineDto(UUID.randomUUID(), 1L, BigDecimal.TEN, Instant.now());
+        ItemSalesPageDto page = new ItemSalesPageDto(itemDto, new PageImpl<>(Collections.singletonList(saleLineDto)));
+
+        Mockito.when(storeService.getSoldItemsLean(Mockito.eq(itemId), Mockito.any(PageRequest.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}/sales", itemId).param("view", "lean").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value("ItemName"))
+                .andExpect(jsonPath("$.sales.content[0].quantitySold").value(1))
+                .andExpect(jsonPath("$.sales.content[0].item").doesNotExist());
+    }
+
+    @Test
+    void testGetSoldItemsBefore() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        SaleDto saleDto = new SaleDto();
+        saleDto.setQuantitySold(1L);
+        CursorPageDto<SaleDto> page = new CursorPageDto<>(Collections.singletonList(saleDto), null);
+
+        Mockito.when(storeService.getSoldItemsBefore(Mockito.eq(itemId), Mockito.eq(""), Mockito.any(PageRequest.class)))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}/sales", itemId).param("cursor", "").param("size", "10"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetSoldItemsBeforeWithInvalidCursor() throws Exception {
+        UUID itemId = UUID.randomUUID();
+
+        Mockito.when(storeService.getSoldItemsBefore(Mockito.eq(itemId), Mockito.eq("bad"), Mockito.any(PageRequest.class)))
+                .thenThrow(new InvalidCursorException("bad"));
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}/sales", itemId).param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetStockQuantity() throws Exception {
         UUID itemId = UUID.randomUUID();
-        Mockito.when(storeService.getStockQuantity(itemId)).thenReturn(10L);
+        Mockito.when(storeService.getStock(itemId)).thenReturn(new StockDto(10L, 4L));
 
         mockMvc.perform(get("/api/v1/store/item/{itemId}/stock", itemId))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(content().string("10"));
+    }
+
+    @Test
+    void testGetStockQuantityWhenNotModified() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        Mockito.when(storeService.getStock(itemId)).thenReturn(new StockDto(10L, 4L));
+
+        mockMvc.perform(get("/api/v1/store/item/{itemId}/stock", itemId).header("If-None-Match", "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testStreamStockChanges() throws Exception {
+        UUID firstItemId = UUID.randomUUID();
+        UUID secondItemId = UUID.randomUUID();
+        Mockito.when(stockChangePublisher.subscribe(Mockito.anySet())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/store/items/stock-changes")
+                        .param("itemId", firstItemId.toString(), secondItemId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(stockChangePublisher).subscribe(Set.of(firstItemId, secondItemId));
     }
 
 }
@@ -0,0 +1,304 @@
+package com.tasks.store.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.Item;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.service.StoreService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the REST API over HTTP with a realistic mix: 80% item and stock reads, 15% sells of a few hot items and
+ * 5% catalog writes. Requests are issued on a fixed schedule and latency is measured from the scheduled start, so
+ * a slow server cannot hide its queueing delay (coordinated omission).
+ * <p>
+ * Tuned with system properties: {@code load.clients}, {@code load.rate} (requests per second over all clients,
+ * 0 for as fast as possible), {@code load.warmup} and {@code load.duration} (seconds), {@code load.report}.
+ * Running it with and without {@code store.virtual-threads.enabled} compares the two request execution modes.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class StoreLoadTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private static final int HOT_ITEMS = 5;
+    private static final int COLD_ITEMS = 1000;
+    private static final long HOT_ITEM_STOCK = 2000;
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int clients = Integer.getInteger("load.clients", 32);
+    private final int rate = Integer.getInteger("load.rate", 1000);
+    private final int warmupSeconds = Integer.getInteger("load.warmup", 5);
+    private final int durationSeconds = Integer.getInteger("load.duration", 30);
+    private final boolean virtualThreads = Boolean.getBoolean("store.virtual-threads.enabled");
+    private final Path report = Path.of(System.getProperty("load.report",
+            "target/load-test-report-" + (virtualThreads ? "virtual" : "platform") + "-threads.txt"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong names = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private List<UUID> hotItems;
+    private List<UUID> coldItems;
+
+    enum Operation {
+        GET_ITEM, GET_STOCK, SELL_HOT_ITEM, ADD_ITEM, UPDATE_ITEM;
+
+        static Operation next(ThreadLocalRandom random) {
+            int roll = random.nextInt(100);
+            if (roll < 40) {
+                return GET_ITEM;
+            } else if (roll < 80) {
+                return GET_STOCK;
+            } else if (roll < 95) {
+                return SELL_HOT_ITEM;
+            } else if (roll < 98) {
+                return ADD_ITEM;
+            }
+            return UPDATE_ITEM;
+        }
+    }
+
+    /**
+     * Points the regular Hikari-pooled datasource at an embedded Postgres, so the pool behaves as in production.
+     */
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void runMixedLoad() throws Exception {
+        createCatalog();
+
+        log.info("Warming up for {} s", warmupSeconds);
+        run(warmupSeconds);
+        errors.set(0);
+
+        log.info("Running {} clients at {} req/s for {} s", clients, rate == 0 ? "max" : rate, durationSeconds);
+        long start = System.nanoTime();
+        Map<Operation, Histogram> histograms = run(durationSeconds);
+        long elapsed = System.nanoTime() - start;
+
+        writeReport(histograms, elapsed);
+        assertNoStockOversold();
+    }
+
+    private void createCatalog() {
+        hotItems = new ArrayList<>();
+        for (int i = 0; i < HOT_ITEMS; i++) {
+            hotItems.add(storeService.addItem(createItemDto("hot-" + i, HOT_ITEM_STOCK)).getId());
+        }
+        List<Item> cold = new ArrayList<>();
+        for (int i = 0; i < COLD_ITEMS; i++) {
+            Item item = new Item();
+            item.setName("cold-" + i);
+            item.setPrice(new BigDecimal("9.99"));
+            item.setQuantity(100L);
+            cold.add(item);
+        }
+        itemRepository.upsertAllByName(cold);
+        coldItems = jdbcTemplate.queryForList("SELECT id FROM store_schema.item WHERE name LIKE 'cold-%'", UUID.class);
+    }
+
+    private Map<Operation, Histogram> run(int seconds) throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long intervalNanos = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) * clients / rate;
+        List<Future<Map<Operation, Histogram>>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            long offset = intervalNanos * i / clients;
+            futures.add(executor.submit(() -> runClient(start + offset, end, intervalNanos)));
+        }
+
+        Map<Operation, Histogram> histograms = newHistograms();
+        for (Future<Map<Operation, Histogram>> future : futures) {
+            future.get().forEach((operation, histogram) -> histograms.get(operation).add(histogram));
+        }
+        executor.shutdown();
+        return histograms;
+    }
+
+    private Map<Operation, Histogram> runClient(long start, long end, long intervalNanos) {
+        Map<Operation, Histogram> histograms = newHistograms();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long scheduled = start;
+        while (scheduled < end) {
+            long now = System.nanoTime();
+            if (scheduled > now) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+            long requestStart = intervalNanos == 0 ? System.nanoTime() : scheduled;
+            Operation operation = Operation.next(random);
+            execute(operation, random);
+            histograms.get(operation).recordValue(Math.min(System.nanoTime() - requestStart, MAX_LATENCY_NANOS));
+            scheduled = intervalNanos == 0 ? System.nanoTime() : scheduled + intervalNanos;
+        }
+        return histograms;
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random) {
+        UUID coldItem = coldItems.get(random.nextInt(coldItems.size()));
+        HttpRequest request = switch (operation) {
+            case GET_ITEM -> request("/item/" + coldItem).GET().build();
+            case GET_STOCK -> request("/item/" + coldItem + "/stock").GET().build();
+            case SELL_HOT_ITEM -> request("/item/" + hotItems.get(random.nextInt(HOT_ITEMS)) + "/sale?quantity=1")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case ADD_ITEM -> request("/item")
+                    .POST(json(createItemDto("new-" + names.incrementAndGet(), 10)))
+                    .header("Content-Type", "application/json").build();
+            case UPDATE_ITEM -> request("/item/" + coldItem)
+                    .PUT(json(createItemDto("cold-updated-" + names.incrementAndGet(), 100)))
+                    .header("Content-Type", "application/json").build();
+        };
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            boolean rejectedSell = operation == Operation.SELL_HOT_ITEM && status == 400;
+            if (status >= 300 && !rejectedSell) {
+                errors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/store" + path))
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeReport(Map<Operation, Histogram> histograms, long elapsedNanos) throws IOException {
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        histograms.values().forEach(total::add);
+        double seconds = elapsedNanos / 1e9;
+
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("clients=%d targetRate=%s duration=%ds threads=%s%n", clients, rate == 0 ? "max" : rate,
+                    durationSeconds, virtualThreads ? "virtual" : "platform");
+            out.printf("requests=%d throughput=%.1f req/s errors=%d%n%n", total.getTotalCount(),
+                    total.getTotalCount() / seconds, errors.get());
+            out.printf("%-14s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            histograms.forEach((operation, histogram) -> printRow(out, operation.name(), histogram));
+            printRow(out, "ALL", total);
+            out.println();
+            total.outputPercentileDistribution(out, 1e6);
+        }
+        log.info("Load test report:\n{}", Files.readString(report));
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-14s %10d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+
+    private void assertNoStockOversold() {
+        for (UUID itemId : hotItems) {
+            long sold = jdbcTemplate.queryForObject(
+                    "SELECT coalesce(sum(quantity_sold), 0) FROM store_schema.sale WHERE item_id = ?", Long.class, itemId);
+            long stock = jdbcTemplate.queryForObject(
+                    "SELECT quantity FROM store_schema.item WHERE id = ?", Long.class, itemId);
+
+            assertThat(stock).isNotNegative();
+            assertThat(sold + stock).isEqualTo(HOT_ITEM_STOCK);
+        }
+    }
+
+    private Map<Operation, Histogram> newHistograms() {
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new Histogram(MAX_LATENCY_NANOS, 3));
+        }
+        return histograms;
+    }
+
+    private CreateItemDto createItemDto(String name, long quantity) {
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName(name);
+        createItemDto.setPrice(new BigDecimal("9.99"));
+        createItemDto.setQuantity(quantity);
+        return createItemDto;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ExportFormat;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class ExportServiceIntTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Item, \"quoted\"");
+        createItemDto.setPrice(new BigDecimal("100.00"));
+        createItemDto.setQuantity(10L);
+
+        itemId = storeService.addItem(createItemDto).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        itemSalesTotalRepository.deleteAllInBatch();
+        saleRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenExportItemsAsCsv_thenHeaderAndEscapedRowsShouldBeWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportItems(ExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")).containsExactly(
+                "id,name,price,quantity",
+                itemId + ",\"Item, \"\"quoted\"\"\",100.00,10");
+    }
+
+    @Test
+    void whenExportSalesAsNdjson_thenOneJsonObjectPerSaleShouldBeWritten() throws Exception {
+        storeService.sellItem(itemId, 1L);
+        storeService.sellItem(itemId, 2L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportSales(itemId, null, null, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("itemId").asText()).isEqualTo(itemId.toString());
+        assertThat(first.get("quantitySold").asLong()).isEqualTo(1L);
+        assertThat(Instant.parse(first.get("createdAt").asText())).isBeforeOrEqualTo(Instant.now());
+    }
+
+    @Test
+    void whenExportSalesOutsideTimeRange_thenNothingShouldBeWritten() {
+        storeService.sellItem(itemId, 1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportSales(null, Instant.now().plusSeconds(60), null, ExportFormat.NDJSON, out);
+
+        assertThat(out.size()).isZero();
+    }
+
+}
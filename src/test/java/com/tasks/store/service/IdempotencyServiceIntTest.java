@@ -0,0 +1,198 @@
+package com.tasks.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasks.store.config.StoreIdempotencyProperties;
+import com.tasks.store.error.IdempotencyKeyReusedException;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.repository.IdempotencyKeyRepository;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class IdempotencyServiceIntTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private StoreIdempotencyProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        itemId = storeService.addItem(createItemDto("Item")).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        idempotencyKeyRepository.deleteAllInBatch();
+        itemSalesTotalRepository.deleteAllInBatch();
+        saleRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenSellIsRetriedWithSameKey_thenItShouldBeSoldOnce() {
+        sell(idempotencyService, key("sell-1"), 3L);
+        sell(idempotencyService, key("sell-1"), 3L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(7L);
+        assertThat(saleRepository.count()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.findById(key("sell-1"))).isPresent();
+    }
+
+    @Test
+    void whenSellIsRetriedOnAnotherInstance_thenStoredResultShouldBeReplayed() {
+        IdempotencyService otherInstance = newInstance(properties);
+
+        sell(idempotencyService, key("sell-1"), 3L);
+        sell(otherInstance, key("sell-1"), 3L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(7L);
+        assertThat(saleRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void whenRetryArrivesAfterStockIsExhausted_thenStoredResultShouldBeReplayed() {
+        sell(idempotencyService, key("sell-1"), 10L);
+
+        sell(newInstance(properties), key("sell-1"), 10L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isZero();
+        assertThat(saleRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void whenCreateIsRetriedWithSameKey_thenFirstItemShouldBeReturned() {
+        CreateItemDto createItemDto = createItemDto("Other");
+
+        String request = "POST /item " + createItemDto;
+
+        ItemDto first = idempotencyService.execute(key("create-1"), request, ItemDto.class,
+                () -> storeService.addItem(createItemDto));
+        ItemDto retried = newInstance(properties).execute(key("create-1"), request, ItemDto.class,
+                () -> storeService.addItem(createItemDto));
+
+        assertThat(retried).isEqualTo(first);
+        assertThat(itemRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void whenKeyIsReusedForAnotherRequest_thenExceptionShouldBeThrown() {
+        sell(idempotencyService, key("sell-1"), 3L);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> sell(idempotencyService, key("sell-1"), 4L));
+        assertThrows(IdempotencyKeyReusedException.class, () -> sell(newInstance(properties), key("sell-1"), 4L));
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenRequestFails_thenKeyShouldNotBeStored() {
+        assertThrows(InsufficientStockException.class, () -> sell(idempotencyService, key("sell-1"), 11L));
+
+        assertThat(idempotencyKeyRepository.count()).isZero();
+        sell(idempotencyService, key("sell-1"), 10L);
+        assertThat(storeService.getItem(itemId).getQuantity()).isZero();
+    }
+
+    @Test
+    void whenKeyHasExpired_thenRequestShouldRunAgain() {
+        StoreIdempotencyProperties expiring = new StoreIdempotencyProperties();
+        expiring.setTtl(Duration.ZERO);
+        IdempotencyService expiringInstance = newInstance(expiring);
+
+        sell(expiringInstance, key("sell-1"), 3L);
+        sell(newInstance(expiring), key("sell-1"), 3L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(4L);
+        assertThat(expiringInstance.removeExpiredKeys()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.count()).isZero();
+    }
+
+    @Test
+    void whenThereAreMoreKeysThanAllowed_thenKeysClosestToExpiryShouldBeRemoved() {
+        StoreIdempotencyProperties bounded = new StoreIdempotencyProperties();
+        bounded.setMaxKeys(1);
+        IdempotencyService boundedInstance = newInstance(bounded);
+
+        sell(boundedInstance, key("sell-1"), 1L);
+        sell(boundedInstance, key("sell-2"), 1L);
+        sell(boundedInstance, key("sell-3"), 1L);
+
+        assertThat(boundedInstance.removeExpiredKeys()).isEqualTo(2);
+        assertThat(idempotencyKeyRepository.findAll()).extracting("id").containsExactly(key("sell-3"));
+    }
+
+    private void sell(IdempotencyService service, String key, long quantity) {
+        service.execute(key, "POST /item/" + itemId + "/sale?quantity=" + quantity, Void.class, () -> {
+            storeService.sellItem(itemId, quantity);
+            return null;
+        });
+    }
+
+    /**
+     * Keys are unique per test, as the local cache of the shared service outlives the database.
+     */
+    private String key(String name) {
+        return itemId + "-" + name;
+    }
+
+    private IdempotencyService newInstance(StoreIdempotencyProperties properties) {
+        return new IdempotencyService(idempotencyKeyRepository, properties, objectMapper, transactionManager);
+    }
+
+    private CreateItemDto createItemDto(String name) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setQuantity(10L);
+        return dto;
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.tasks.store.service;
+
+import com.tasks.store.error.InvalidImportException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.ImportErrorDto;
+import com.tasks.store.model.ImportReportDto;
+import com.tasks.store.model.Item;
+import com.tasks.store.repository.ItemRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class ImportServiceIntTest {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID existingItemId;
+
+    @BeforeEach
+    public void setUp() {
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Existing");
+        createItemDto.setPrice(new BigDecimal("1.00"));
+        createItemDto.setQuantity(1L);
+
+        existingItemId = storeService.addItem(createItemDto).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenImportCsv_thenValidRowsShouldBeUpsertedAndInvalidRowsReported() throws Exception {
+        storeService.getItem(existingItemId);
+        String csv = """
+                name,price,quantity
+                "Comma, item",2.50,5
+                Existing,3.00,7
+                Negative,-1,1
+                Broken,abc,1
+                Precise,1.005,1
+                Huge,100000000,1
+                """;
+
+        ImportReportDto report = importService.importCsv(stream(csv));
+
+        assertThat(report.getProcessed()).isEqualTo(6);
+        assertThat(report.getUpserted()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(4);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("price ");
+        assertThat(itemRepository.count()).isEqualTo(2);
+        assertThat(storeService.getItem(existingItemId).getQuantity()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenImportJsonWithDuplicateNames_thenLastRowShouldWin() throws Exception {
+        String json = """
+                [
+                  {"name": "New", "price": 1.00, "quantity": 1},
+                  {"name": "New", "price": 2.00, "quantity": 2},
+                  {"name": "", "price": 1.00, "quantity": 1},
+                  {"name": "Bad", "price": "x", "quantity": 1}
+                ]
+                """;
+
+        ImportReportDto report = importService.importJson(stream(json));
+
+        assertThat(report.getUpserted()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(3L, 4L);
+        assertThat(itemRepository.findAll()).filteredOn(item -> item.getName().equals("New"))
+                .singleElement().extracting(Item::getQuantity).isEqualTo(2L);
+    }
+
+    @Test
+    void whenImportChangesStock_thenStockEventsShouldBeRecorded() throws Exception {
+        importService.importCsv(stream("name,price,quantity\nExisting,3.00,7\nNew,1.00,4\n"));
+
+        List<Map<String, Object>> events = jdbcTemplate.queryForList(
+                "SELECT item_id, quantity FROM store_schema.stock_event ORDER BY id");
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0)).containsEntry("item_id", existingItemId).containsEntry("quantity", 7);
+        assertThat(events.get(1)).containsEntry("quantity", 4);
+    }
+
+    @Test
+    void whenImportedNameMatchesDeletedItem_thenItemShouldBeRestored() throws Exception {
+        storeService.deleteItem(existingItemId);
+
+        ImportReportDto report = importService.importCsv(stream("name,price,quantity\nExisting,3.00,7\n"));
+
+        assertThat(report.getUpserted()).isEqualTo(1);
+        assertThat(storeService.getItem(existingItemId).getQuantity()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenJsonIsMalformedMidStream_thenRowsBeforeShouldBeImportedAndCachesCleared() {
+        storeService.getItem(existingItemId);
+        String json = """
+                [
+                  {"name": "Existing", "price": 3.00, "quantity": 7},
+                  {"name": "New", "price": 1.00, "quantity": 1},
+                  {"name": "Broken",
+                """;
+
+        InvalidImportException e = assertThrows(InvalidImportException.class,
+                () -> importService.importJson(stream(json)));
+
+        assertThat(e.getMessage()).contains("2 items before it were imported");
+        assertThat(itemRepository.count()).isEqualTo(2);
+        assertThat(storeService.getItem(existingItemId).getQuantity()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenImportCsvWithoutHeader_thenImportShouldBeRejected() {
+        assertThrows(InvalidImportException.class, () -> importService.importCsv(stream("a,b\n1,2\n")));
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
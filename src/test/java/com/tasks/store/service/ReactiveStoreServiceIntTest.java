@@ -0,0 +1,329 @@
+package com.tasks.store.service;
+
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.InvalidCursorException;
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
+import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.OrderLineDto;
+import com.tasks.store.model.SaleDto;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveStoreServiceIntTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private ReactiveStoreService storeService;
+
+    @Autowired
+    private ReactiveSalePartitionService salePartitionService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private CreateItemDto createItemDto;
+    private ItemDto itemDto;
+    private UUID itemId;
+
+    @DynamicPropertySource
+    static void r2dbcProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        new ResourceDatabasePopulator(new ClassPathResource("sql/create_schema.sql"),
+                new ClassPathResource("sql/add_item_table.sql"),
+                new ClassPathResource("sql/add_sale_table.sql"),
+                new ClassPathResource("sql/add_item_sales_total_table.sql"),
+                new ClassPathResource("sql/add_sale_rollup_table.sql"),
+                new ClassPathResource("sql/add_idempotency_key_table.sql"),
+                new ClassPathResource("sql/add_stock_event_table.sql"),
+                new ClassPathResource("sql/add_stock_hold_table.sql"))
+                .execute(postgres.getPostgresDatabase());
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("spring.r2dbc.username", () -> "postgres");
+        registry.add("spring.r2dbc.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        createItemDto = createItemDto("ItemName");
+        itemDto = storeService.addItem(createItemDto).block();
+        itemId = itemDto.getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        databaseClient.sql("TRUNCATE store_schema.item_sales_total, store_schema.item_sales_archived_total, "
+                + "store_schema.sale, store_schema.stock_hold, store_schema.stock_event, store_schema.item")
+                .then().block();
+    }
+
+    @Test
+    void whenAddItem_thenItemShouldBeAdded() {
+        StepVerifier.create(storeService.getItem(itemId))
+                .expectNext(itemDto)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenUpdateItem_thenItemShouldBeUpdated() {
+        CreateItemDto updateDto = createItemDto("UpdatedName");
+        updateDto.setQuantity(20L);
+
+        ItemDto updatedItem = storeService.updateItem(itemId, updateDto).block();
+
+        assertThat(updatedItem).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
+                .ignoringFields("version").isEqualTo(updateDto);
+    }
+
+    @Test
+    void whenUpdateItemBelowHeldUnits_thenInsufficientStockAndItemUnchanged() {
+        // Held as if reserved by a servlet instance, which takes the held units off the item
+        databaseClient.sql("INSERT INTO store_schema.stock_hold (id, item_id, quantity, unit_price, expires_at) "
+                        + "VALUES (gen_random_uuid(), :itemId, 4, 10.00, now() + interval '10 minutes')")
+                .bind("itemId", itemId)
+                .then().block();
+        databaseClient.sql("UPDATE store_schema.item SET quantity = quantity - 4 WHERE id = :itemId")
+                .bind("itemId", itemId)
+                .then().block();
+        CreateItemDto updateDto = createItemDto("UpdatedName");
+        updateDto.setQuantity(3L);
+
+        StepVerifier.create(storeService.updateItem(itemId, updateDto))
+                .verifyError(InsufficientStockException.class);
+
+        assertThat(storeService.getItem(itemId).block().getName()).isEqualTo(createItemDto.getName());
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(6L);
+    }
+
+    @Test
+    void whenDeleteItem_thenItemShouldBeExcludedFromReadsAndPages() {
+        storeService.deleteItem(itemId).block();
+
+        StepVerifier.create(storeService.getItem(itemId))
+                .verifyError(ItemNotFoundException.class);
+        assertThat(storeService.getAllItems(PageRequest.of(0, 10)).block().getTotalElements()).isZero();
+    }
+
+    @Test
+    void whenSellItem_thenStockShouldDecreaseAndSaleShouldBeRecorded() {
+        storeService.sellItem(itemId, 3L).block();
+
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(7L);
+        List<SaleDto> sales = storeService.getSoldItems(itemId, PageRequest.of(0, 10)).block().getContent();
+        assertThat(sales).singleElement().satisfies(sale -> {
+            assertThat(sale.getQuantitySold()).isEqualTo(3L);
+            assertThat(sale.getItem().getName()).isEqualTo(createItemDto.getName());
+            assertThat(sale.getCreatedAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void whenStockChanges_thenStockEventsShouldBeRecorded() {
+        storeService.sellItem(itemId, 3L).block();
+        storeService.sellItems(createOrderDto(orderLine(itemId, 2L))).block();
+        storeService.updateItem(itemId, createItemDto("UpdatedName")).block();
+        storeService.deleteItem(itemId).block();
+        StepVerifier.create(storeService.sellItem(itemId, 1L)).verifyError(ItemNotFoundException.class);
+
+        List<Long> quantities = databaseClient.sql("SELECT quantity FROM store_schema.stock_event "
+                        + "WHERE item_id = :itemId ORDER BY id")
+                .bind("itemId", itemId)
+                .map(row -> row.get("quantity", Long.class))
+                .all()
+                .collectList()
+                .block();
+        assertThat(quantities).containsExactly(7L, 5L, 10L, 10L);
+        assertThat(storeService.removeOldStockEvents()).isZero();
+    }
+
+    @Test
+    void whenPartitionsAreCreated_thenSalesShouldGoToMonthlyPartitions() {
+        salePartitionService.createPartitions().block();
+        storeService.sellItem(itemId, 1L).block();
+
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        String partition = databaseClient.sql("SELECT tableoid::regclass::text AS partition FROM store_schema.sale")
+                .map(row -> row.get("partition", String.class))
+                .one()
+                .block();
+        assertThat(partition).isEqualTo("store_schema.sale_p%d_%02d".formatted(month.getYear(), month.getMonthValue()));
+    }
+
+    @Test
+    void whenSellMoreThanInStock_thenInsufficientStockAndStockUnchanged() {
+        StepVerifier.create(storeService.sellItem(itemId, 11L))
+                .verifyError(InsufficientStockException.class);
+
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(10L);
+    }
+
+    @Test
+    void whenSellNonPositiveQuantity_thenInvalidQuantityAndStockUnchanged() {
+        StepVerifier.create(storeService.sellItem(itemId, -5L))
+                .verifyError(InvalidQuantityException.class);
+        StepVerifier.create(storeService.sellItem(itemId, 0L))
+                .verifyError(InvalidQuantityException.class);
+
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(10L);
+        assertThat(storeService.getSoldItems(itemId, PageRequest.of(0, 10)).block().getContent()).isEmpty();
+    }
+
+    @Test
+    void whenSellUnknownItem_thenItemNotFound() {
+        StepVerifier.create(storeService.sellItem(UUID.randomUUID(), 1L))
+                .verifyError(ItemNotFoundException.class);
+    }
+
+    @Test
+    void whenSellConcurrently_thenStockShouldNeverGoNegative() {
+        long sold = Flux.range(0, 50)
+                .flatMap(i -> storeService.sellItem(itemId, 1L).thenReturn(1L)
+                        .onErrorResume(InsufficientStockException.class, e -> Mono.just(0L)), 16)
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertThat(sold).isEqualTo(10L);
+        assertThat(storeService.getStockQuantity(itemId).block()).isZero();
+    }
+
+    @Test
+    void whenOrderLineIsShortOfStock_thenWholeOrderShouldBeRolledBack() {
+        UUID otherItemId = storeService.addItem(createItemDto("OtherItem")).block().getId();
+
+        StepVerifier.create(storeService.sellItems(createOrderDto(orderLine(itemId, 5L), orderLine(otherItemId, 11L))))
+                .verifyError(InsufficientStockException.class);
+
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(10L);
+        assertThat(storeService.getSoldItems(itemId, PageRequest.of(0, 10)).block().getTotalElements()).isZero();
+    }
+
+    @Test
+    void whenOrderSucceeds_thenEveryLineShouldBeSold() {
+        UUID otherItemId = storeService.addItem(createItemDto("OtherItem")).block().getId();
+
+        storeService.sellItems(createOrderDto(orderLine(itemId, 2L), orderLine(otherItemId, 3L), orderLine(itemId, 1L)))
+                .block();
+
+        assertThat(storeService.getStockQuantity(itemId).block()).isEqualTo(7L);
+        assertThat(storeService.getStockQuantity(otherItemId).block()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenPagingSalesByCursor_thenEverySaleShouldBeReturnedOnce() {
+        for (int i = 0; i < 5; i++) {
+            storeService.sellItem(itemId, 1L).block();
+        }
+
+        CursorPageDto<SaleDto> first = storeService.getSoldItemsBefore(itemId, null, PageRequest.of(0, 3)).block();
+        CursorPageDto<SaleDto> second = storeService.getSoldItemsBefore(itemId, first.getNextCursor(),
+                PageRequest.of(0, 3)).block();
+
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(second.getContent()).hasSize(2);
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(first.getContent()).extracting(SaleDto::getId)
+                .doesNotContainAnyElementsOf(second.getContent().stream().map(SaleDto::getId).toList());
+    }
+
+    @Test
+    void whenPagingItemsByCursor_thenPagesShouldFollowIdOrder() {
+        storeService.addItem(createItemDto("SecondItem")).block();
+        storeService.addItem(createItemDto("ThirdItem")).block();
+
+        CursorPageDto<ItemDto> first = storeService.getAllItemsAfter(null, PageRequest.of(0, 2)).block();
+        CursorPageDto<ItemDto> second = storeService.getAllItemsAfter(UUID.fromString(first.getNextCursor()),
+                PageRequest.of(0, 2)).block();
+
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(second.getContent()).hasSize(1);
+        assertThat(second.getContent().get(0).getId().toString())
+                .isGreaterThan(first.getContent().get(1).getId().toString());
+    }
+
+    @Test
+    void whenCursorIsMalformed_thenInvalidCursor() {
+        StepVerifier.create(Mono.defer(() -> storeService.getSoldItemsBefore(itemId, "not-a-cursor",
+                        PageRequest.of(0, 3))))
+                .verifyError(InvalidCursorException.class);
+    }
+
+    @Test
+    void whenCallingRoutes_thenResponsesShouldMatchServletApi() {
+        webTestClient.get().uri("/api/v1/store/items?page=0&size=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(itemId.toString())
+                .jsonPath("$.totalElements").isEqualTo(1);
+
+        webTestClient.post().uri("/api/v1/store/item/{itemId}/sale?quantity=11", itemId)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
+
+        webTestClient.get().uri("/api/v1/store/item/{itemId}/stock", UUID.randomUUID())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static CreateItemDto createItemDto(String name) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal("100.00"));
+        dto.setQuantity(10L);
+        return dto;
+    }
+
+    private static OrderLineDto orderLine(UUID itemId, long quantity) {
+        OrderLineDto line = new OrderLineDto();
+        line.setItemId(itemId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private static CreateOrderDto createOrderDto(OrderLineDto... lines) {
+        CreateOrderDto dto = new CreateOrderDto();
+        dto.setLines(List.of(lines));
+        return dto;
+    }
+
+}
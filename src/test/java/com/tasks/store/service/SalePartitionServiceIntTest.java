@@ -0,0 +1,156 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreSalePartitionProperties;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.SalePartition;
+import com.tasks.store.repository.SaleRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class SalePartitionServiceIntTest {
+
+    private static final Instant OLD_MONTH_START = Instant.parse("2020-01-01T00:00:00Z");
+    private static final Instant OLD_MONTH_END = Instant.parse("2020-02-01T00:00:00Z");
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private SalesTotalsService salesTotalsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path archiveDir;
+
+    private final StoreSalePartitionProperties properties = new StoreSalePartitionProperties();
+    private SalePartitionService salePartitionService;
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setArchiveDir(archiveDir);
+        salePartitionService = new SalePartitionService(saleRepository, properties, transactionManager);
+
+        itemId = storeService.addItem(createItemDto()).getId();
+    }
+
+    @Test
+    void whenMaintaining_thenCurrentAndPremadeMonthsShouldHavePartitions() {
+        salePartitionService.maintainPartitions();
+        salePartitionService.maintainPartitions();
+
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        assertThat(saleRepository.findPartitions()).extracting(SalePartition::getName).containsExactly(
+                partitionName(month), partitionName(month.plusMonths(1)), partitionName(month.plusMonths(2)),
+                partitionName(month.plusMonths(3)), "sale_default");
+        storeService.sellItem(itemId, 1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM store_schema." + partitionName(month),
+                Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    void whenMonthHasNoPartition_thenItsSalesShouldBeMovedOutOfDefaultPartitionOnceCreated() {
+        storeService.sellItem(itemId, 1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM store_schema.sale_default", Long.class))
+                .isEqualTo(1L);
+
+        salePartitionService.createPartitions();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM store_schema.sale_default", Long.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM store_schema."
+                + partitionName(YearMonth.now(ZoneOffset.UTC)), Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    void whenPartitionIsPastRetention_thenItShouldBeArchivedAndDropped() throws IOException {
+        saleRepository.createPartition("sale_p2020_01", OLD_MONTH_START, OLD_MONTH_END);
+        UUID oldSaleId = insertSale(Instant.parse("2020-01-15T12:00:00Z"));
+        salePartitionService.createPartitions();
+        storeService.sellItem(itemId, 1L);
+
+        assertThat(salePartitionService.removeExpiredPartitions()).isEqualTo(1);
+
+        assertThat(saleRepository.findPartitions()).extracting(SalePartition::getName)
+                .doesNotContain("sale_p2020_01");
+        assertThat(saleRepository.count()).isEqualTo(1L);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archiveDir.resolve("sale_p2020_01.csv.gz")))) {
+            String archived = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(archived).startsWith("id,item_id,").contains(oldSaleId.toString());
+        }
+        salesTotalsService.rebuildSalesTotals();
+        assertThat(salesTotalsService.getSalesTotal(itemId).getUnitsSold()).isEqualTo(2L);
+    }
+
+    @Test
+    void whenArchivingIsDisabled_thenExpiredPartitionShouldOnlyBeDetached() {
+        properties.setArchive(false);
+        saleRepository.createPartition("sale_p2020_01", OLD_MONTH_START, OLD_MONTH_END);
+        insertSale(Instant.parse("2020-01-15T12:00:00Z"));
+
+        assertThat(salePartitionService.removeExpiredPartitions()).isEqualTo(1);
+
+        assertThat(saleRepository.findPartitions()).extracting(SalePartition::getName)
+                .containsExactly("sale_default");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM store_schema.sale_p2020_01", Long.class))
+                .isEqualTo(1L);
+        assertThat(archiveDir).isEmptyDirectory();
+    }
+
+    private UUID insertSale(Instant createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO store_schema.sale (id, item_id, quantity_sold, unit_price, created_at) "
+                + "VALUES (?, ?, 1, 10.00, ?)", id, itemId, Timestamp.from(createdAt));
+        return id;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "sale_p%d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private static CreateItemDto createItemDto() {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName("Partitioned item");
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setQuantity(10L);
+        return dto;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.tasks.store.service;
+
+import com.tasks.store.error.InvalidTimeRangeException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.RollupGranularity;
+import com.tasks.store.model.SalesBucketDto;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class SalesRollupServiceIntTest {
+
+    private static final Instant DAY_START = Instant.parse("2024-03-10T00:00:00Z");
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID itemId;
+    private UUID otherItemId;
+
+    @BeforeEach
+    public void setUp() {
+        itemId = storeService.addItem(createItemDto("Item", "10.00")).getId();
+        otherItemId = storeService.addItem(createItemDto("OtherItem", "2.00")).getId();
+    }
+
+    @Test
+    void whenItemIsSold_thenCurrentBucketsShouldBeUpdatedInTheSameTransaction() {
+        Instant before = Instant.now();
+        storeService.sellItem(itemId, 2L);
+        storeService.sellItem(itemId, 3L);
+
+        List<SalesBucketDto> hours = salesRollupService.getRollups(RollupGranularity.HOUR, itemId,
+                before, Instant.now().plus(Duration.ofHours(1)));
+        List<SalesBucketDto> days = salesRollupService.getRollups(RollupGranularity.DAY, itemId,
+                before, Instant.now().plus(Duration.ofDays(1)));
+
+        assertThat(hours).first().satisfies(bucket -> {
+            assertThat(bucket.getBucketStart()).isEqualTo(before.truncatedTo(ChronoUnit.HOURS));
+            assertThat(bucket.getRevenue()).isEqualByComparingTo(new BigDecimal(10 * bucket.getUnitsSold()));
+        });
+        assertThat(hours.stream().mapToLong(SalesBucketDto::getUnitsSold).sum()).isEqualTo(5L);
+        assertThat(hours.stream().mapToLong(SalesBucketDto::getSaleCount).sum()).isEqualTo(2L);
+        assertThat(days.stream().mapToLong(SalesBucketDto::getUnitsSold).sum()).isEqualTo(5L);
+    }
+
+    @Test
+    void whenSalesArriveLate_thenCatchUpShouldRollThemUpOnce() {
+        insertLateSale(itemId, 1L, "10.00", DAY_START.plus(Duration.ofMinutes(10)));
+        insertLateSale(itemId, 2L, "10.00", DAY_START.plus(Duration.ofMinutes(50)));
+        insertLateSale(itemId, 4L, "12.00", DAY_START.plus(Duration.ofHours(5)));
+
+        assertThat(salesRollupService.catchUpRollups()).isEqualTo(3L);
+        assertThat(salesRollupService.catchUpRollups()).isZero();
+
+        List<SalesBucketDto> hours = salesRollupService.getRollups(RollupGranularity.HOUR, itemId,
+                DAY_START, DAY_START.plus(Duration.ofDays(1)));
+        assertThat(hours).extracting(SalesBucketDto::getBucketStart)
+                .containsExactly(DAY_START, DAY_START.plus(Duration.ofHours(5)));
+        assertThat(hours).extracting(SalesBucketDto::getUnitsSold).containsExactly(3L, 4L);
+        List<SalesBucketDto> days = salesRollupService.getRollups(RollupGranularity.DAY, itemId,
+                DAY_START, DAY_START.plus(Duration.ofDays(1)));
+        assertThat(days).singleElement().satisfies(bucket -> {
+            assertThat(bucket.getUnitsSold()).isEqualTo(7L);
+            assertThat(bucket.getRevenue()).isEqualByComparingTo("78.00");
+            assertThat(bucket.getSaleCount()).isEqualTo(3L);
+        });
+    }
+
+    @Test
+    void whenQueryingAllItems_thenBucketsShouldBeSummedOverItems() {
+        insertLateSale(itemId, 1L, "10.00", DAY_START.plus(Duration.ofMinutes(5)));
+        insertLateSale(otherItemId, 3L, "2.00", DAY_START.plus(Duration.ofMinutes(15)));
+        insertLateSale(otherItemId, 1L, "2.00", DAY_START.plus(Duration.ofHours(2)));
+        salesRollupService.catchUpRollups();
+
+        List<SalesBucketDto> hours = salesRollupService.getRollups(RollupGranularity.HOUR, null,
+                DAY_START, DAY_START.plus(Duration.ofDays(1)));
+
+        assertThat(hours).extracting(SalesBucketDto::getUnitsSold).containsExactly(4L, 1L);
+        assertThat(hours.get(0).getRevenue()).isEqualByComparingTo("16.00");
+    }
+
+    @Test
+    void whenTimeRangeIsEmptyOrTooLong_thenInvalidTimeRange() {
+        assertThrows(InvalidTimeRangeException.class, () -> salesRollupService.getRollups(RollupGranularity.HOUR,
+                itemId, DAY_START, DAY_START));
+        assertThrows(InvalidTimeRangeException.class, () -> salesRollupService.getRollups(RollupGranularity.HOUR,
+                itemId, DAY_START, DAY_START.plus(Duration.ofDays(3650))));
+    }
+
+    private void insertLateSale(UUID itemId, long quantity, String unitPrice, Instant createdAt) {
+        jdbcTemplate.update("INSERT INTO store_schema.sale (id, item_id, quantity_sold, unit_price, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", UUID.randomUUID(), itemId, quantity, new BigDecimal(unitPrice),
+                Timestamp.from(createdAt));
+    }
+
+    private static CreateItemDto createItemDto(String name, String price) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal(price));
+        dto.setQuantity(100L);
+        return dto;
+    }
+
+}
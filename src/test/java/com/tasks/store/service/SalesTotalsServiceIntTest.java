@@ -0,0 +1,189 @@
+package com.tasks.store.service;
+
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.OrderLineDto;
+import com.tasks.store.model.SalesTotalDto;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class SalesTotalsServiceIntTest {
+
+    @Autowired
+    private SalesTotalsService salesTotalsService;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        itemId = storeService.addItem(createItemDto("Item", "10.00", 1000L)).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        itemSalesTotalRepository.deleteAllInBatch();
+        saleRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenItemHasNoSales_thenTotalsShouldBeZero() {
+        SalesTotalDto total = salesTotalsService.getSalesTotal(itemId);
+
+        assertThat(total.getItemId()).isEqualTo(itemId);
+        assertThat(total.getName()).isEqualTo("Item");
+        assertThat(total.getUnitsSold()).isZero();
+        assertThat(total.getRevenue()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(total.getSaleCount()).isZero();
+    }
+
+    @Test
+    void whenItemIsSold_thenTotalsShouldUsePriceAtTimeOfSale() {
+        storeService.sellItem(itemId, 2L);
+        storeService.updateItem(itemId, createItemDto("Item", "15.00", 998L));
+        storeService.sellItem(itemId, 1L);
+
+        SalesTotalDto total = salesTotalsService.getSalesTotal(itemId);
+
+        assertThat(total.getUnitsSold()).isEqualTo(3L);
+        assertThat(total.getRevenue()).isEqualByComparingTo("35.00");
+        assertThat(total.getSaleCount()).isEqualTo(2L);
+    }
+
+    @Test
+    void whenOrderIsSold_thenEveryLineShouldBeAddedToTotals() {
+        UUID otherItemId = storeService.addItem(createItemDto("OtherItem", "2.50", 10L)).getId();
+
+        storeService.sellItems(createOrderDto(orderLine(itemId, 1L), orderLine(otherItemId, 4L),
+                orderLine(itemId, 2L)));
+
+        assertThat(salesTotalsService.getSalesTotal(itemId).getUnitsSold()).isEqualTo(3L);
+        assertThat(salesTotalsService.getSalesTotal(otherItemId).getRevenue()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void whenItemIsDeleted_thenTotalsShouldNotBeFound() {
+        storeService.sellItem(itemId, 1L);
+        storeService.deleteItem(itemId);
+
+        assertThrows(ItemNotFoundException.class, () -> salesTotalsService.getSalesTotal(itemId));
+        assertThat(salesTotalsService.getTopSellers(10)).isEmpty();
+    }
+
+    @Test
+    void whenSellingConcurrently_thenTotalsShouldMatchSales() throws Exception {
+        int threads = 8;
+        int sellsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < sellsPerThread; j++) {
+                    storeService.sellItem(itemId, 2L);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        SalesTotalDto total = salesTotalsService.getSalesTotal(itemId);
+
+        assertThat(total.getSaleCount()).isEqualTo((long) threads * sellsPerThread);
+        assertThat(total.getUnitsSold()).isEqualTo(2L * threads * sellsPerThread);
+        assertThat(total.getRevenue()).isEqualByComparingTo(new BigDecimal(20 * threads * sellsPerThread));
+    }
+
+    @Test
+    void whenGettingTopSellers_thenItemsShouldBeOrderedByUnitsSold() {
+        UUID bestSellerId = storeService.addItem(createItemDto("BestSeller", "1.00", 100L)).getId();
+        storeService.addItem(createItemDto("NeverSold", "1.00", 100L));
+        storeService.sellItem(itemId, 3L);
+        storeService.sellItem(bestSellerId, 10L);
+
+        List<SalesTotalDto> topSellers = salesTotalsService.getTopSellers(10);
+
+        assertThat(topSellers).extracting(SalesTotalDto::getItemId).containsExactly(bestSellerId, itemId);
+        assertThat(salesTotalsService.getTopSellers(1)).extracting(SalesTotalDto::getName)
+                .containsExactly("BestSeller");
+    }
+
+    @Test
+    void whenRebuildingTotals_thenTotalsShouldMatchIncrementalOnes() {
+        storeService.sellItem(itemId, 2L);
+        storeService.sellItem(itemId, 5L);
+        SalesTotalDto incremental = salesTotalsService.getSalesTotal(itemId);
+        jdbcTemplate.update("UPDATE store_schema.item_sales_total SET units_sold = 0, revenue = 0, sale_count = 0");
+
+        int items = salesTotalsService.rebuildSalesTotals();
+
+        assertThat(items).isEqualTo(1);
+        assertThat(salesTotalsService.getSalesTotal(itemId)).isEqualTo(incremental);
+    }
+
+    private static CreateItemDto createItemDto(String name, String price, long quantity) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal(price));
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private static OrderLineDto orderLine(UUID itemId, long quantity) {
+        OrderLineDto line = new OrderLineDto();
+        line.setItemId(itemId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private static CreateOrderDto createOrderDto(OrderLineDto... lines) {
+        CreateOrderDto dto = new CreateOrderDto();
+        dto.setLines(List.of(lines));
+        return dto;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreSellCoalescingProperties;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.ItemNotFoundException;
+import com.tasks.store.error.SellTimeoutException;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class SellCoalescerIntTest {
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SellCoalescer sellCoalescer;
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        StoreSellCoalescingProperties properties = new StoreSellCoalescingProperties();
+        properties.setEnabled(true);
+        properties.setWindow(Duration.ofMillis(20));
+        properties.setMaxBatchSize(3);
+        sellCoalescer = new SellCoalescer(storeService, properties, meterRegistry);
+
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Hot item");
+        createItemDto.setPrice(new BigDecimal("10.00"));
+        createItemDto.setQuantity(10L);
+        itemId = storeService.addItem(createItemDto).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sellCoalescer.shutdown();
+        itemSalesTotalRepository.deleteAllInBatch();
+        saleRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenBatchExceedsStock_thenOnlySellsBeyondRemainingStockShouldBeRejected() {
+        CompletableFuture<Void> first = sellCoalescer.enqueue(itemId, 4L);
+        CompletableFuture<Void> second = sellCoalescer.enqueue(itemId, 8L);
+        CompletableFuture<Void> third = sellCoalescer.enqueue(itemId, 3L);
+
+        assertThat(first).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(third).succeedsWithin(Duration.ofSeconds(5));
+        assertThatThrownBy(second::join).hasCauseInstanceOf(InsufficientStockException.class);
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(3L);
+        assertThat(saleRepository.findAll()).extracting("quantitySold").containsExactlyInAnyOrder(4L, 3L);
+        assertThat(itemSalesTotalRepository.findById(itemId).orElseThrow().getUnitsSold()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenBatchIsNotFull_thenItShouldBeAppliedAfterWindow() {
+        CompletableFuture<Void> sell = sellCoalescer.enqueue(itemId, 2L);
+
+        assertThat(sell).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(8L);
+    }
+
+    @Test
+    void whenQuantityIsNotPositive_thenSellShouldBeRejectedBeforeBatching() {
+        assertThatThrownBy(() -> sellCoalescer.sellItem(itemId, -5L)).isInstanceOf(InvalidQuantityException.class);
+        assertThatThrownBy(() -> sellCoalescer.sellItem(itemId, 0L)).isInstanceOf(InvalidQuantityException.class);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(10L);
+        assertThat(saleRepository.count()).isZero();
+    }
+
+    @Test
+    void whenBatchIsNotAppliedInTime_thenSellShouldTimeOut() {
+        StoreSellCoalescingProperties slow = new StoreSellCoalescingProperties();
+        slow.setEnabled(true);
+        slow.setWindow(Duration.ofSeconds(30));
+        slow.setTimeout(Duration.ofMillis(50));
+        SellCoalescer slowCoalescer = new SellCoalescer(storeService, slow, meterRegistry);
+
+        try {
+            assertThatThrownBy(() -> slowCoalescer.sellItem(itemId, 1L)).isInstanceOf(SellTimeoutException.class);
+        } finally {
+            slowCoalescer.shutdown();
+        }
+    }
+
+    @Test
+    void whenItemDoesNotExist_thenEverySellShouldFail() {
+        UUID nonExistentItemId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> sellCoalescer.sellItem(nonExistentItemId, 1L))
+                .isInstanceOf(ItemNotFoundException.class);
+    }
+
+    @Test
+    void whenSellingConcurrently_thenStockShouldBeSoldExactlyOnce() throws Exception {
+        int sellers = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(sellers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < sellers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    sellCoalescer.sellItem(itemId, 1L);
+                    return true;
+                } catch (InsufficientStockException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        long sold = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                sold++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(sold).isEqualTo(10);
+        assertThat(storeService.getItem(itemId).getQuantity()).isZero();
+        assertThat(saleRepository.count()).isEqualTo(10);
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreStockEventsProperties;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.StockChangeDto;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import com.tasks.store.repository.StockEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class StockChangePublisherIntTest {
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private StockEventRepository stockEventRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StockChangePublisher stockChangePublisher;
+    private final BlockingQueue<StockChangeDto> received = new LinkedBlockingQueue<>();
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        StoreStockEventsProperties properties = new StoreStockEventsProperties();
+        properties.setPollInterval(Duration.ofMillis(20));
+        properties.setSubscriberBufferSize(2);
+        stockChangePublisher = new StockChangePublisher(stockEventRepository, properties, meterRegistry);
+
+        itemId = storeService.addItem(createItemDto("Shelf item")).getId();
+        // Lets the first poll take its read position
+        Thread.sleep(100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stockChangePublisher.shutdown();
+        itemSalesTotalRepository.deleteAllInBatch();
+        saleRepository.deleteAll();
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void whenItemIsSold_thenSubscriberShouldReceiveCommittedStock() throws InterruptedException {
+        stockChangePublisher.subscribe(Set.of(itemId), received::add, () -> { });
+
+        storeService.sellItem(itemId, 2L);
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(new StockChangeDto(itemId, 8L, 1L, false));
+    }
+
+    @Test
+    void whenSellIsRolledBack_thenNoChangeShouldBePublished() throws InterruptedException {
+        stockChangePublisher.subscribe(Set.of(itemId), received::add, () -> { });
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            storeService.sellItem(itemId, 1L);
+            status.setRollbackOnly();
+        });
+        storeService.deleteItem(itemId);
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(new StockChangeDto(itemId, 10L, 1L, true));
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void whenOtherItemChanges_thenFilteredSubscriberShouldNotReceiveIt() throws InterruptedException {
+        UUID otherItemId = storeService.addItem(createItemDto("Other item")).getId();
+        stockChangePublisher.subscribe(Set.of(itemId), received::add, () -> { });
+
+        storeService.sellItem(otherItemId, 1L);
+        storeService.sellItem(itemId, 3L);
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).extracting(StockChangeDto::getItemId).isEqualTo(itemId);
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void whenSubscriberFallsBehind_thenItShouldBeDisconnected() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch disconnected = new CountDownLatch(1);
+        stockChangePublisher.subscribe(Set.of(), change -> {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, disconnected::countDown);
+
+        storeService.sellItem(itemId, 1L);
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        // One more item than the buffer holds
+        for (int i = 0; i < 3; i++) {
+            UUID otherItemId = storeService.addItem(createItemDto("Item " + i)).getId();
+            storeService.sellItem(otherItemId, 1L);
+        }
+
+        assertThat(disconnected.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    private CreateItemDto createItemDto(String name) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setQuantity(10L);
+        return dto;
+    }
+
+}
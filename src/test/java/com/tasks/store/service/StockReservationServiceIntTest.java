@@ -0,0 +1,287 @@
+package com.tasks.store.service;
+
+import com.tasks.store.config.StoreReservationProperties;
+import com.tasks.store.error.HoldNotFoundException;
+import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.mapper.SaleMapper;
+import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.HoldDto;
+import com.tasks.store.model.ImportReportDto;
+import com.tasks.store.model.Item;
+import com.tasks.store.model.SaleDto;
+import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
+import com.tasks.store.repository.SaleRepository;
+import com.tasks.store.repository.StockHoldRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
+class StockReservationServiceIntTest {
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private SaleMapper saleMapper;
+
+    @Autowired
+    private StockChangePublisher stockChangePublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final StoreReservationProperties properties = new StoreReservationProperties();
+    private StockReservationService stockReservationService;
+    private UUID itemId;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setTick(Duration.ofMillis(20));
+        properties.setWheelSize(64);
+        stockReservationService = new StockReservationService(itemRepository, stockHoldRepository, saleRepository,
+                itemSalesTotalRepository, saleMapper, stockChangePublisher, cacheManager, meterRegistry, properties,
+                transactionManager);
+
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Reserved item");
+        createItemDto.setPrice(new BigDecimal("10.00"));
+        createItemDto.setQuantity(10L);
+        itemId = storeService.addItem(createItemDto).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stockReservationService.shutdown();
+    }
+
+    @Test
+    void whenReserving_thenAvailableStockShouldExcludeHold() {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+
+        assertThat(hold.getUnitPrice()).isEqualByComparingTo("10.00");
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(6L);
+        assertThatThrownBy(() -> stockReservationService.reserve(itemId, 7L))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> storeService.sellItem(itemId, 7L)).isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> stockReservationService.reserve(itemId, 0L))
+                .isInstanceOf(InvalidQuantityException.class);
+    }
+
+    @Test
+    void whenConfirming_thenHoldShouldBeSoldOnceAtReservedPrice() {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+        jdbcTemplate.update("UPDATE store_schema.item SET price = 12.00 WHERE id = ?", itemId);
+
+        SaleDto sale = stockReservationService.confirm(hold.getId());
+
+        assertThat(sale.getQuantitySold()).isEqualTo(4L);
+        assertThat(saleRepository.findAll()).singleElement()
+                .satisfies(s -> assertThat(s.getUnitPrice()).isEqualByComparingTo("10.00"));
+        assertThat(itemSalesTotalRepository.findById(itemId).orElseThrow().getUnitsSold()).isEqualTo(4L);
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(6L);
+        assertThatThrownBy(() -> stockReservationService.confirm(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+        assertThatThrownBy(() -> stockReservationService.release(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void whenReleasing_thenStockShouldBeReturned() {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+
+        stockReservationService.release(hold.getId());
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(10L);
+        assertThat(stockHoldRepository.count()).isZero();
+        assertThatThrownBy(() -> stockReservationService.confirm(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void whenUpdatingItemWithHold_thenReleaseShouldNotCreateStock() {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Reserved item");
+        createItemDto.setPrice(new BigDecimal("10.00"));
+        createItemDto.setQuantity(20L);
+
+        assertThat(storeService.updateItem(itemId, createItemDto).getQuantity()).isEqualTo(16L);
+
+        stockReservationService.release(hold.getId());
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(20L);
+    }
+
+    @Test
+    void whenUpdatingItemBelowHeldUnits_thenInsufficientStockAndItemUnchanged() {
+        stockReservationService.reserve(itemId, 4L);
+        CreateItemDto createItemDto = new CreateItemDto();
+        createItemDto.setName("Renamed item");
+        createItemDto.setPrice(new BigDecimal("10.00"));
+        createItemDto.setQuantity(3L);
+
+        assertThatThrownBy(() -> storeService.updateItem(itemId, createItemDto))
+                .isInstanceOf(InsufficientStockException.class);
+
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        assertThat(item.getName()).isEqualTo("Reserved item");
+        assertThat(item.getQuantity()).isEqualTo(6L);
+    }
+
+    @Test
+    void whenImportingItemWithHold_thenReleaseShouldNotCreateStock() throws IOException {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+
+        importService.importCsv(new ByteArrayInputStream(
+                "name,price,quantity\nReserved item,10.00,20\n".getBytes(StandardCharsets.UTF_8)));
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(16L);
+
+        stockReservationService.release(hold.getId());
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(20L);
+    }
+
+    @Test
+    void whenImportingItemBelowHeldUnits_thenRowShouldFailAndItemUnchanged() throws IOException {
+        stockReservationService.reserve(itemId, 4L);
+
+        ImportReportDto report = importService.importCsv(new ByteArrayInputStream(
+                "name,price,quantity\nReserved item,10.00,3\nOther item,1.00,5\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getUpserted()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> assertThat(error.getRow()).isEqualTo(1L));
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(6L);
+    }
+
+    @Test
+    void whenDeletingExpiredHoldsById_thenCallersClockShouldDecide() {
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+        List<UUID> ids = List.of(hold.getId());
+        Instant expiresAt = stockHoldRepository.findById(hold.getId()).orElseThrow().getExpiresAt();
+
+        assertThat(stockHoldRepository.deleteExpired(ids, expiresAt.minusMillis(1))).isEmpty();
+        // Due by the caller's clock even though the database clock has not reached the expiry yet
+        assertThat(stockHoldRepository.deleteExpired(ids, expiresAt)).singleElement()
+                .satisfies(deleted -> assertThat(deleted.getQuantity()).isEqualTo(4L));
+    }
+
+    @Test
+    void whenHoldExpires_thenTimingWheelShouldReleaseIt() throws InterruptedException {
+        properties.setHoldTtl(Duration.ofMillis(100));
+        HoldDto hold = stockReservationService.reserve(itemId, 4L);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stockHoldRepository.count() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(stockHoldRepository.count()).isZero();
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(10L);
+        assertThatThrownBy(() -> stockReservationService.confirm(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void whenExpiredHoldIsNotInTimingWheel_thenSweepShouldReleaseIt() {
+        stockReservationService.reserve(itemId, 4L);
+        stockReservationService.reserve(itemId, 2L);
+        // Expired as if reserved by another instance
+        jdbcTemplate.update("UPDATE store_schema.stock_hold SET expires_at = now() - interval '1 minute'");
+        properties.setSweepBatchSize(1);
+
+        assertThat(stockReservationService.releaseExpiredHolds()).isEqualTo(2L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(10L);
+        assertThat(stockReservationService.releaseExpiredHolds()).isZero();
+    }
+
+    @Test
+    void whenReservingConcurrently_thenStockShouldBeReservedExactlyOnce() throws Exception {
+        int buyers = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.reserve(itemId, 1L);
+                    return true;
+                } catch (InsufficientStockException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        long reserved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(reserved).isEqualTo(10);
+        assertThat(storeService.getItem(itemId).getQuantity()).isZero();
+        assertThat(stockHoldRepository.count()).isEqualTo(10);
+    }
+
+}
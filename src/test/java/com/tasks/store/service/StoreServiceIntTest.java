@@ -1,30 +1,60 @@
 package com.tasks.store.service;
 
+import com.tasks.store.config.CacheConfig;
+import com.tasks.store.config.StatementCounter;
 import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidBatchLookupException;
+import com.tasks.store.error.InvalidQuantityException;
+import com.tasks.store.error.InvalidSearchQueryException;
 import com.tasks.store.error.ItemNotFoundException;
 import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.ItemBatchDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.OrderLineDto;
+import com.tasks.store.model.SaleLineDto;
+import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.StockBatchDto;
 import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
 import com.tasks.store.repository.SaleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.RefreshMode.AFTER_EACH_TEST_METHOD;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+@Slf4j
 @SpringBootTest
 @AutoConfigureEmbeddedDatabase(refresh = AFTER_EACH_TEST_METHOD)
-@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql"})
+@Sql(scripts = {"/sql/create_schema.sql", "/sql/add_item_table.sql", "/sql/add_sale_table.sql",
+        "/sql/add_item_sales_total_table.sql", "/sql/add_sale_rollup_table.sql",
+        "/sql/add_idempotency_key_table.sql", "/sql/add_stock_event_table.sql",
+        "/sql/add_stock_hold_table.sql"})
 class StoreServiceIntTest {
 
     @Autowired
@@ -36,6 +66,15 @@ class StoreServiceIntTest {
     @Autowired
     private SaleRepository saleRepository;
 
+    @Autowired
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
+    @Autowired
+    private CaffeineCacheManager caffeineCacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private CreateItemDto createItemDto;
     private ItemDto itemDto;
     private UUID itemId;
@@ -54,6 +93,7 @@ class StoreServiceIntTest {
 
     @AfterEach
     public void tearDown() {
+        itemSalesTotalRepository.deleteAllInBatch();
         saleRepository.deleteAll();
         itemRepository.deleteAll();
     }
@@ -63,6 +103,26 @@ class StoreServiceIntTest {
         assertThat(storeService.getItem(itemId)).isEqualTo(itemDto);
     }
 
+    @Test
+    void whenGetItemTwice_thenSecondReadShouldBeServedFromCache() {
+        var itemsCache = ((CaffeineCache) caffeineCacheManager.getCache(CacheConfig.ITEMS)).getNativeCache();
+        long hits = itemsCache.stats().hitCount();
+
+        storeService.getItem(itemId);
+        storeService.getItem(itemId);
+
+        assertThat(itemsCache.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void whenSellCachedItem_thenItemShouldBeReloaded() {
+        storeService.getItem(itemId);
+
+        storeService.sellItem(itemId, 3L);
+
+        assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(createItemDto.getQuantity() - 3L);
+    }
+
     @Test
     void whenUpdateItem_thenItemShouldBeUpdated() {
         CreateItemDto updateDto = new CreateItemDto();
@@ -73,6 +133,7 @@ class StoreServiceIntTest {
         ItemDto updatedItem = storeService.updateItem(itemId, updateDto);
 
         assertThat(updatedItem).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
+                .ignoringFields("version").withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
                 .isEqualTo(updateDto);
     }
 
@@ -91,6 +152,129 @@ class StoreServiceIntTest {
         assertThat(items.getContent()).contains(itemDto);
     }
 
+    @Test
+    void whenGetAllItems_thenDeletedItemsShouldBeExcludedFromPageAndTotal() {
+        UUID deletedItemId = storeService.addItem(createItemDto("DeletedItem")).getId();
+        storeService.addItem(createItemDto("OtherItem"));
+        storeService.deleteItem(deletedItemId);
+
+        var items = storeService.getAllItems(PageRequest.of(0, 2));
+
+        assertThat(items.getContent()).hasSize(2).extracting(ItemDto::getId).doesNotContain(deletedItemId);
+        assertThat(items.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void whenGetAllItemsAfterCursor_thenEveryActiveItemShouldBeReturnedOnce() {
+        UUID deletedItemId = storeService.addItem(createItemDto("DeletedItem")).getId();
+        for (int i = 0; i < 4; i++) {
+            storeService.addItem(createItemDto("Item" + i));
+        }
+        storeService.deleteItem(deletedItemId);
+
+        List<ItemDto> items = new ArrayList<>();
+        UUID cursor = null;
+        do {
+            var page = storeService.getAllItemsAfter(cursor, PageRequest.of(0, 2));
+            items.addAll(page.getContent());
+            cursor = page.getNextCursor() == null ? null : UUID.fromString(page.getNextCursor());
+        } while (cursor != null);
+
+        assertThat(items).hasSize(5).extracting(ItemDto::getId).doesNotHaveDuplicates().doesNotContain(deletedItemId);
+    }
+
+    @Test
+    void whenSearchItems_thenPrefixMatchesShouldComeFirstAndDeletedItemsShouldBeExcluded() {
+        UUID widgetProId = storeService.addItem(createItemDto("Widget Pro")).getId();
+        UUID blueWidgetId = storeService.addItem(createItemDto("Blue Widget")).getId();
+        UUID deletedItemId = storeService.addItem(createItemDto("Widget Old")).getId();
+        storeService.addItem(createItemDto("Gadget"));
+        storeService.deleteItem(deletedItemId);
+
+        var items = storeService.searchItems("WIDG", PageRequest.of(0, 10));
+
+        assertThat(items.getContent()).extracting(ItemDto::getId).containsExactly(widgetProId, blueWidgetId);
+        assertThat(items.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenSearchItemsWithShortQuery_thenOnlyPrefixMatchesShouldBeReturned() {
+        UUID widgetProId = storeService.addItem(createItemDto("Widget Pro")).getId();
+        storeService.addItem(createItemDto("Blue Widget"));
+
+        var items = storeService.searchItems("wi", PageRequest.of(0, 10));
+
+        assertThat(items.getContent()).extracting(ItemDto::getId).containsExactly(widgetProId);
+    }
+
+    @Test
+    void whenSearchItemsWithTypo_thenSimilarNamesShouldBeReturned() {
+        UUID gadgetId = storeService.addItem(createItemDto("Gadget")).getId();
+
+        var items = storeService.searchItems("gadgte", PageRequest.of(0, 10));
+
+        assertThat(items.getContent()).extracting(ItemDto::getId).containsExactly(gadgetId);
+    }
+
+    @Test
+    void whenSearchItemsPastPageSize_thenSliceShouldHaveNext() {
+        for (int i = 0; i < 3; i++) {
+            storeService.addItem(createItemDto("Lamp " + i));
+        }
+
+        var first = storeService.searchItems("lamp", PageRequest.of(0, 2));
+        var second = storeService.searchItems("lamp", PageRequest.of(1, 2));
+
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).hasSize(1);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenSearchItemsWithBlankQuery_thenExceptionShouldBeThrown() {
+        var pageable = PageRequest.of(0, 10);
+
+        assertThrows(InvalidSearchQueryException.class, () -> storeService.searchItems("  ", pageable));
+    }
+
+    @Test
+    void whenGetItemsInBatch_thenItemsShouldFollowRequestOrderAndMissingIdsShouldBeReported() {
+        UUID otherItemId = storeService.addItem(createItemDto("Other Item")).getId();
+        UUID deletedItemId = storeService.addItem(createItemDto("Deleted Item")).getId();
+        storeService.deleteItem(deletedItemId);
+        UUID unknownId = UUID.randomUUID();
+
+        ItemBatchDto batch = storeService.getItems(List.of(otherItemId, unknownId, itemId, deletedItemId, itemId),
+                null);
+
+        assertThat(batch.getItems()).extracting(ItemDto::getId).containsExactly(otherItemId, itemId);
+        assertThat(batch.getItems().get(0)).isEqualTo(storeService.getItem(otherItemId));
+        assertThat(batch.getNotFound()).containsExactly(unknownId);
+        assertThat(batch.getDeleted()).containsExactly(deletedItemId);
+    }
+
+    @Test
+    void whenGetItemsInBatchWithFields_thenOnlyThoseFieldsShouldBeSet() {
+        ItemBatchDto batch = storeService.getItems(List.of(itemId), List.of("id", "quantity"));
+
+        assertThat(batch.getItems()).containsExactly(new ItemDto(itemId, null, null, createItemDto.getQuantity(), null));
+        assertThrows(InvalidBatchLookupException.class, () -> storeService.getItems(List.of(itemId), List.of("cost")));
+        assertThrows(InvalidBatchLookupException.class, () -> storeService.getItems(List.of(), null));
+    }
+
+    @Test
+    void whenGetStocksInBatch_thenStockShouldBeMappedById() {
+        storeService.sellItem(itemId, 1L);
+        UUID unknownId = UUID.randomUUID();
+
+        StockBatchDto batch = storeService.getStocks(List.of(itemId, unknownId));
+
+        assertThat(batch.getStock()).containsExactly(Map.entry(itemId, createItemDto.getQuantity() - 1));
+        assertThat(batch.getNotFound()).containsExactly(unknownId);
+        assertThat(batch.getDeleted()).isEmpty();
+    }
+
     @Test
     void whenSellItem_thenItemQuantityShouldDecrease() {
         long soldQuantity = 1L;
@@ -100,6 +284,15 @@ class StoreServiceIntTest {
         assertThat(storeService.getItem(itemId).getQuantity()).isEqualTo(createItemDto.getQuantity() - soldQuantity);
     }
 
+    @Test
+    void whenSellItem_thenSalesCounterShouldIncrease() {
+        double sales = meterRegistry.counter("store.sales").count();
+
+        storeService.sellItem(itemId, 2L);
+
+        assertThat(meterRegistry.counter("store.sales").count()).isEqualTo(sales + 1);
+    }
+
     @Test
     void whenSellItemWithInsufficientStock_thenExceptionShouldBeThrown() {
         long soldQuantity = createItemDto.getQuantity() + 1;
@@ -107,6 +300,97 @@ class StoreServiceIntTest {
         assertThrows(InsufficientStockException.class, () -> storeService.sellItem(itemId, soldQuantity));
     }
 
+    @Test
+    void whenSellItemConcurrently_thenStockShouldNeverGoNegative() throws Exception {
+        int threads = 8;
+        int attemptsPerThread = 50;
+        long stock = 200L;
+        CreateItemDto hotItemDto = new CreateItemDto();
+        hotItemDto.setName("HotItem");
+        hotItemDto.setPrice(new BigDecimal("1.00"));
+        hotItemDto.setQuantity(stock);
+        UUID hotItemId = storeService.addItem(hotItemDto).getId();
+
+        AtomicLong sold = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    try {
+                        storeService.sellItem(hotItemId, 1L);
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        long attempts = (long) threads * attemptsPerThread;
+        log.info("Concurrent sellItem: {} attempts by {} threads in {} ms ({} ops/s), sold={}, rejected={}",
+                attempts, threads, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                attempts * TimeUnit.SECONDS.toNanos(1) / elapsedNanos, sold.get(), rejected.get());
+
+        assertThat(sold.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(attempts - stock);
+        assertThat(storeService.getStock(hotItemId).getQuantity()).isZero();
+        assertThat(storeService.getSoldItems(hotItemId, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(stock);
+    }
+
+    @Test
+    void whenSellItems_thenAllLinesShouldBeSold() {
+        CreateItemDto otherItemDto = new CreateItemDto();
+        otherItemDto.setName("OtherItem");
+        otherItemDto.setPrice(new BigDecimal("5.00"));
+        otherItemDto.setQuantity(3L);
+        UUID otherItemId = storeService.addItem(otherItemDto).getId();
+
+        storeService.sellItems(createOrderDto(orderLine(itemId, 4L), orderLine(otherItemId, 3L)));
+
+        assertThat(storeService.getStock(itemId).getQuantity()).isEqualTo(6L);
+        assertThat(storeService.getStock(otherItemId).getQuantity()).isZero();
+        assertThat(saleRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void whenSellItemsWithInsufficientStock_thenNothingShouldBeSold() {
+        CreateItemDto otherItemDto = new CreateItemDto();
+        otherItemDto.setName("OtherItem");
+        otherItemDto.setPrice(new BigDecimal("5.00"));
+        otherItemDto.setQuantity(3L);
+        UUID otherItemId = storeService.addItem(otherItemDto).getId();
+        CreateOrderDto createOrderDto = createOrderDto(orderLine(itemId, 4L), orderLine(otherItemId, 4L));
+
+        assertThrows(InsufficientStockException.class, () -> storeService.sellItems(createOrderDto));
+
+        assertThat(storeService.getStock(itemId).getQuantity()).isEqualTo(createItemDto.getQuantity());
+        assertThat(storeService.getStock(otherItemId).getQuantity()).isEqualTo(3L);
+        assertThat(saleRepository.count()).isZero();
+    }
+
+    @Test
+    void whenSellItemsWithNegativeQuantity_thenNothingShouldBeSold() {
+        CreateOrderDto createOrderDto = createOrderDto(orderLine(itemId, 4L), orderLine(itemId, -5L));
+
+        assertThrows(InvalidQuantityException.class, () -> storeService.sellItems(createOrderDto));
+
+        assertThat(storeService.getStock(itemId).getQuantity()).isEqualTo(createItemDto.getQuantity());
+        assertThat(saleRepository.count()).isZero();
+    }
+
     @Test
     void whenGetSoldItems_thenAllSoldItemsShouldBeReturned() {
         var pageable = PageRequest.of(0, 10);
@@ -117,9 +401,119 @@ class StoreServiceIntTest {
         assertThat(sales.getContent()).hasSize(1);
     }
 
+    @Test
+    void whenGetSoldItemsLean_thenItemShouldBeReturnedOnceWithItsSales() {
+        storeService.sellItem(itemId, 1L);
+        storeService.sellItem(itemId, 2L);
+
+        var page = storeService.getSoldItemsLean(itemId, PageRequest.of(0, 10));
+
+        assertThat(page.getItem()).isEqualTo(storeService.getItem(itemId));
+        assertThat(page.getSales().getContent()).extracting(SaleLineDto::getQuantitySold).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(page.getSales().getContent()).extracting(SaleLineDto::getUnitPrice)
+                .containsOnly(createItemDto.getPrice());
+    }
+
+    @Test
+    void whenGetSoldItemsLean_thenEachPageShouldIssueAFixedNumberOfStatements() {
+        for (int i = 0; i < 10; i++) {
+            storeService.sellItem(itemId, 1L);
+        }
+
+        StatementCounter.reset();
+        var fullPage = storeService.getSoldItemsLean(itemId, PageRequest.of(1, 4));
+        // item lookup, sales and count
+        assertThat(StatementCounter.get()).isEqualTo(3);
+        assertThat(fullPage.getSales().getContent()).hasSize(4);
+        assertThat(fullPage.getSales().getTotalElements()).isEqualTo(10);
+
+        StatementCounter.reset();
+        var lastPage = storeService.getSoldItemsLean(itemId, PageRequest.of(2, 4));
+        // the count is derived from a partial last page
+        assertThat(StatementCounter.get()).isEqualTo(2);
+        assertThat(lastPage.getSales().getContent()).hasSize(2);
+    }
+
+    @Test
+    void whenGetSoldItemsLeanOfNonexistentItem_thenExceptionShouldBeThrown() {
+        UUID nonExistentItemId = UUID.randomUUID();
+        var pageable = PageRequest.of(0, 10);
+
+        assertThrows(ItemNotFoundException.class, () -> storeService.getSoldItemsLean(nonExistentItemId, pageable));
+    }
+
+    @Test
+    void whenGetSoldItemsBeforeCursor_thenEverySaleShouldBeReturnedNewestFirst() {
+        for (int i = 0; i < 5; i++) {
+            storeService.sellItem(itemId, 1L);
+        }
+
+        List<SaleDto> sales = new ArrayList<>();
+        String cursor = "";
+        do {
+            var page = storeService.getSoldItemsBefore(itemId, cursor, PageRequest.of(0, 2));
+            sales.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(sales).hasSize(5).extracting(SaleDto::getId).doesNotHaveDuplicates();
+        assertThat(sales).extracting(SaleDto::getCreatedAt).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void whenItemChanges_thenVersionShouldIncrease() {
+        long version = storeService.getItemVersion(itemId);
+        assertThat(itemDto.getVersion()).isEqualTo(version);
+
+        storeService.sellItem(itemId, 1L);
+        assertThat(storeService.getItemVersion(itemId)).isEqualTo(version + 1);
+
+        storeService.sellItems(createOrderDto(orderLine(itemId, 1L)));
+        assertThat(storeService.getItemVersion(itemId)).isEqualTo(version + 2);
+
+        storeService.sellItemBatch(itemId, List.of(1L, 1L));
+        assertThat(storeService.getItemVersion(itemId)).isEqualTo(version + 3);
+
+        storeService.updateItem(itemId, createItemDto);
+        assertThat(storeService.getItem(itemId).getVersion()).isEqualTo(version + 4);
+        assertThat(storeService.getStock(itemId).getVersion()).isEqualTo(version + 4);
+    }
+
+    @Test
+    void whenUpdatingWhileSelling_thenNeitherShouldFail() throws Exception {
+        long version = storeService.getItemVersion(itemId);
+        CreateItemDto restock = createItemDto("Restocked item");
+        restock.setQuantity(100L);
+        int rounds = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(2 * rounds);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return storeService.updateItem(itemId, restock);
+            }));
+            results.add(executor.submit(() -> {
+                start.await();
+                storeService.sellItem(itemId, 1L);
+                return null;
+            }));
+        }
+        start.countDown();
+
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(saleRepository.count()).isEqualTo(rounds);
+        assertThat(storeService.getItemVersion(itemId)).isEqualTo(version + 2 * rounds);
+        assertThat(storeService.getItem(itemId).getName()).isEqualTo("Restocked item");
+    }
+
     @Test
     void whenGetStockQuantity_thenCorrectStockQuantityShouldBeReturned() {
-        assertThat(storeService.getStockQuantity(itemId)).isEqualTo(createItemDto.getQuantity());
+        assertThat(storeService.getStock(itemId).getQuantity()).isEqualTo(createItemDto.getQuantity());
     }
 
     @Test
@@ -129,4 +523,25 @@ class StoreServiceIntTest {
         assertThrows(ItemNotFoundException.class, () -> storeService.updateItem(nonExistentItemId, createItemDto));
     }
 
+    private CreateItemDto createItemDto(String name) {
+        CreateItemDto dto = new CreateItemDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal("5.00"));
+        dto.setQuantity(3L);
+        return dto;
+    }
+
+    private OrderLineDto orderLine(UUID itemId, long quantity) {
+        OrderLineDto orderLineDto = new OrderLineDto();
+        orderLineDto.setItemId(itemId);
+        orderLineDto.setQuantity(quantity);
+        return orderLineDto;
+    }
+
+    private CreateOrderDto createOrderDto(OrderLineDto... lines) {
+        CreateOrderDto createOrderDto = new CreateOrderDto();
+        createOrderDto.setLines(List.of(lines));
+        return createOrderDto;
+    }
+
 }
@@ -1,35 +1,51 @@
 package com.tasks.store.service;
 
 import com.tasks.store.error.InsufficientStockException;
+import com.tasks.store.error.InvalidCursorException;
 import com.tasks.store.error.ItemNotFoundException;
 import com.tasks.store.mapper.ItemMapper;
 import com.tasks.store.mapper.SaleMapper;
 import com.tasks.store.model.Item;
 import com.tasks.store.model.CreateItemDto;
+import com.tasks.store.model.CreateOrderDto;
+import com.tasks.store.model.CursorPageDto;
 import com.tasks.store.model.ItemDto;
+import com.tasks.store.model.OrderLineDto;
 import com.tasks.store.model.Sale;
+import com.tasks.store.model.SaleCursor;
 import com.tasks.store.model.SaleDto;
+import com.tasks.store.model.StockDto;
 import com.tasks.store.repository.ItemRepository;
+import com.tasks.store.repository.ItemSalesTotalRepository;
 import com.tasks.store.repository.SaleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,17 +59,24 @@ class StoreServiceTest {
     @Mock
     private SaleRepository saleRepository;
 
+    @Mock
+    private ItemSalesTotalRepository itemSalesTotalRepository;
+
     @Mock
     private ItemMapper itemMapper;
 
     @Mock
     private SaleMapper saleMapper;
 
+    @Mock
+    private StockChangePublisher stockChangePublisher;
+
     private StoreService storeService;
 
     @BeforeEach
     public void setup() {
-        storeService = new StoreService(itemRepository, saleRepository, itemMapper, saleMapper);
+        storeService = new StoreService(itemRepository, saleRepository, itemSalesTotalRepository, itemMapper, saleMapper,
+                stockChangePublisher, new ConcurrentMapCacheManager(), new SimpleMeterRegistry());
     }
 
     @Test
@@ -69,7 +92,7 @@ class StoreServiceTest {
         ItemDto result = storeService.addItem(createItemDto);
 
         assertThat(result).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
-                .isEqualTo(createItemDto);
+                .ignoringFields("version").isEqualTo(createItemDto);
     }
 
     @Nested
@@ -88,7 +111,7 @@ class StoreServiceTest {
             ItemDto result = storeService.getItem(itemId);
 
             assertThat(result).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
-                    .isEqualTo(createItemDto);
+                    .ignoringFields("version").isEqualTo(createItemDto);
         }
 
         @Test
@@ -111,16 +134,17 @@ class StoreServiceTest {
             UUID itemId = UUID.randomUUID();
             CreateItemDto createItemDto = createItemDto();
             ItemDto itemDto = toItemDto(createItemDto);
-            Item item = new Item();
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-            when(itemRepository.save(item)).thenReturn(item);
-            when(itemMapper.toItemDto(item)).thenReturn(itemDto);
+            when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(new Item()));
+            when(itemRepository.updateDetails(itemId, createItemDto.getName(), createItemDto.getPrice(),
+                    createItemDto.getQuantity())).thenReturn(1);
+            when(itemRepository.findDtoById(itemId)).thenReturn(Optional.of(itemDto));
 
             ItemDto result = storeService.updateItem(itemId, createItemDto);
 
+            verify(stockChangePublisher).recordChanges(List.of(itemId));
             assertThat(result).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
-                    .isEqualTo(createItemDto);
+                    .ignoringFields("version").isEqualTo(createItemDto);
         }
 
         @Test
@@ -128,10 +152,12 @@ class StoreServiceTest {
             UUID itemId = UUID.randomUUID();
             CreateItemDto createItemDto = createItemDto();
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+            when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.empty());
 
             assertThatExceptionOfType(ItemNotFoundException.class)
                     .isThrownBy(() -> storeService.updateItem(itemId, createItemDto));
+            verify(itemRepository, never()).updateDetails(any(), any(), any(), anyLong());
+            verify(stockChangePublisher, never()).recordChanges(any());
         }
 
     }
@@ -148,6 +174,7 @@ class StoreServiceTest {
             storeService.deleteItem(itemId);
 
             verify(itemRepository, times(1)).markAsDeleted(itemId);
+            verify(stockChangePublisher).recordChanges(List.of(itemId));
         }
 
         @Test
@@ -169,53 +196,94 @@ class StoreServiceTest {
         ItemDto itemDto = toItemDto(createItemDto);
         Page<Item> itemPage = new PageImpl<>(Collections.singletonList(item), pageable, 1);
 
-        when(itemRepository.findAll(pageable)).thenReturn(itemPage);
+        when(itemRepository.findAllActive(pageable)).thenReturn(itemPage);
         when(itemMapper.toItemDto(item)).thenReturn(itemDto);
 
         Page<ItemDto> result = storeService.getAllItems(pageable);
 
-        verify(itemRepository, times(1)).findAll(pageable);
+        verify(itemRepository, times(1)).findAllActive(pageable);
         verify(itemMapper, times(1)).toItemDto(item);
 
         assertThat(result.getContent().get(0)).usingRecursiveComparison().ignoringFieldsOfTypes(UUID.class)
-                .isEqualTo(createItemDto);
+                .ignoringFields("version").isEqualTo(createItemDto);
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Nested
+    class GetAllItemsAfter {
+
+        @Test
+        void getAllItemsAfter_whenMoreItemsRemain() {
+            UUID cursor = UUID.randomUUID();
+            Item first = new Item();
+            Item second = new Item();
+            ItemDto firstDto = toItemDto(createItemDto());
+
+            when(itemRepository.findActiveAfter(cursor, PageRequest.of(0, 2))).thenReturn(List.of(first, second));
+            when(itemMapper.toItemDto(first)).thenReturn(firstDto);
+
+            CursorPageDto<ItemDto> result = storeService.getAllItemsAfter(cursor, PageRequest.of(0, 1));
+
+            assertThat(result.getContent()).containsExactly(firstDto);
+            assertThat(result.getNextCursor()).isEqualTo(firstDto.getId().toString());
+        }
+
+        @Test
+        void getAllItemsAfter_whenLastPage() {
+            Item item = new Item();
+            ItemDto itemDto = toItemDto(createItemDto());
+
+            when(itemRepository.findActiveFirst(PageRequest.of(0, 6))).thenReturn(List.of(item));
+            when(itemMapper.toItemDto(item)).thenReturn(itemDto);
+
+            CursorPageDto<ItemDto> result = storeService.getAllItemsAfter(null, PageRequest.of(0, 5));
+
+            assertThat(result.getContent()).containsExactly(itemDto);
+            assertThat(result.getNextCursor()).isNull();
+        }
+
+    }
+
     @Nested
     class SellItem {
 
         @Test
         void sellItem_whenItemExists_andSufficientStock() {
             UUID itemId = UUID.randomUUID();
-            Item item = new Item();
-            item.setQuantity(10L);
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+            when(itemRepository.decrementQuantity(itemId, 5)).thenReturn(Optional.of(new BigDecimal("10.00")));
+            when(itemRepository.getReferenceById(itemId)).thenReturn(new Item());
 
             storeService.sellItem(itemId, 5);
 
-            assertThat(item.getQuantity()).isEqualTo(5L);
-            verify(saleRepository, times(1)).save(any());
+            verify(itemRepository, never()).findById(itemId);
+            verify(saleRepository, times(1)).saveAndFlush(any());
+            verify(saleRepository).addToRollups(any());
+            verify(stockChangePublisher).recordChanges(List.of(itemId));
+            verify(itemSalesTotalRepository).addSales(argThat(sales -> sales.size() == 1
+                    && sales.get(0).getUnitPrice().equals(new BigDecimal("10.00"))));
         }
 
         @Test
         void sellItem_whenItemExists_andInsufficientStock() {
             UUID itemId = UUID.randomUUID();
-            Item item = new Item();
-            item.setQuantity(5L);
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+            when(itemRepository.decrementQuantity(itemId, 10)).thenReturn(Optional.empty());
+            when(itemRepository.existsActiveById(itemId)).thenReturn(true);
 
             assertThatExceptionOfType(InsufficientStockException.class)
                     .isThrownBy(() -> storeService.sellItem(itemId, 10));
+            verify(saleRepository, never()).saveAndFlush(any());
+            verify(itemSalesTotalRepository, never()).addSales(any());
+            verify(stockChangePublisher, never()).recordChanges(any());
         }
 
         @Test
         void sellItem_whenItemDoesNotExist() {
             UUID itemId = UUID.randomUUID();
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+            when(itemRepository.decrementQuantity(itemId, 5)).thenReturn(Optional.empty());
+            when(itemRepository.existsActiveById(itemId)).thenReturn(false);
 
             assertThatExceptionOfType(ItemNotFoundException.class)
                     .isThrownBy(() -> storeService.sellItem(itemId, 5));
@@ -223,6 +291,55 @@ class StoreServiceTest {
 
     }
 
+    @Nested
+    class SellItems {
+
+        @Test
+        void sellItems_whenAllLinesHaveSufficientStock() {
+            UUID firstItemId = UUID.randomUUID();
+            UUID secondItemId = UUID.randomUUID();
+            CreateOrderDto createOrderDto = createOrderDto(orderLine(secondItemId, 2L), orderLine(firstItemId, 1L),
+                    orderLine(secondItemId, 3L));
+
+            when(itemRepository.decrementQuantities(any())).thenReturn(new int[]{1, 1});
+            when(itemRepository.findAllById(any())).thenReturn(List.of(item(firstItemId), item(secondItemId)));
+
+            storeService.sellItems(createOrderDto);
+
+            verify(itemRepository).decrementQuantities(new TreeMap<>(Map.of(firstItemId, 1L, secondItemId, 5L)));
+            verify(saleRepository, times(1)).saveAllAndFlush(argThat(sales -> ((List<Sale>) sales).size() == 2));
+            verify(saleRepository).addToRollups(argThat(sales -> sales.size() == 2
+                    && sales.stream().allMatch(Sale::isRolledUp)));
+            verify(itemSalesTotalRepository).addSales(argThat(sales -> sales.size() == 2));
+        }
+
+        @Test
+        void sellItems_whenOneLineHasInsufficientStock() {
+            UUID itemId = UUID.randomUUID();
+            CreateOrderDto createOrderDto = createOrderDto(orderLine(itemId, 20L));
+
+            when(itemRepository.decrementQuantities(any())).thenReturn(new int[]{0});
+            when(itemRepository.existsActiveById(itemId)).thenReturn(true);
+
+            assertThatExceptionOfType(InsufficientStockException.class)
+                    .isThrownBy(() -> storeService.sellItems(createOrderDto));
+            verify(saleRepository, never()).saveAllAndFlush(any());
+        }
+
+        @Test
+        void sellItems_whenOneItemDoesNotExist() {
+            UUID itemId = UUID.randomUUID();
+            CreateOrderDto createOrderDto = createOrderDto(orderLine(itemId, 1L));
+
+            when(itemRepository.decrementQuantities(any())).thenReturn(new int[]{0});
+            when(itemRepository.existsActiveById(itemId)).thenReturn(false);
+
+            assertThatExceptionOfType(ItemNotFoundException.class)
+                    .isThrownBy(() -> storeService.sellItems(createOrderDto));
+        }
+
+    }
+
     @Test
     void getSoldItems() {
         UUID itemId = UUID.randomUUID();
@@ -239,29 +356,65 @@ class StoreServiceTest {
 
 
     @Nested
-    class GetStockQuantity {
+    class GetSoldItemsBefore {
 
         @Test
-        void getStockQuantity_whenItemExists() {
+        void getSoldItemsBefore_whenMoreSalesRemain() {
             UUID itemId = UUID.randomUUID();
-            Item item = new Item();
-            item.setQuantity(10L);
+            Sale newer = sale(Instant.parse("2024-01-02T00:00:00Z"));
+            Sale older = sale(Instant.parse("2024-01-01T00:00:00Z"));
+            SaleCursor cursor = new SaleCursor(Instant.parse("2024-01-03T00:00:00Z"), UUID.randomUUID());
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+            when(saleRepository.findByItemIdBefore(itemId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, 2)))
+                    .thenReturn(List.of(newer, older));
+            when(saleMapper.toSaleDto(newer)).thenReturn(new SaleDto());
 
-            Long result = storeService.getStockQuantity(itemId);
+            CursorPageDto<SaleDto> result = storeService.getSoldItemsBefore(itemId, cursor.encode(), PageRequest.of(0, 1));
 
-            assertThat(result).isEqualTo(10L);
+            assertThat(result.getContent()).hasSize(1);
+            assertThat(SaleCursor.decode(result.getNextCursor())).isEqualTo(SaleCursor.of(newer));
         }
 
         @Test
-        void getStockQuantity_whenItemDoesNotExist() {
+        void getSoldItemsBefore_whenCursorIsInvalid() {
             UUID itemId = UUID.randomUUID();
 
-            when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+            assertThatExceptionOfType(InvalidCursorException.class)
+                    .isThrownBy(() -> storeService.getSoldItemsBefore(itemId, "not-a-cursor", PageRequest.of(0, 1)));
+        }
+
+        private Sale sale(Instant createdAt) {
+            Sale sale = new Sale();
+            sale.setId(UUID.randomUUID());
+            sale.setCreatedAt(createdAt);
+            return sale;
+        }
+
+    }
+
+    @Nested
+    class GetStock {
+
+        @Test
+        void getStock_whenItemExists() {
+            UUID itemId = UUID.randomUUID();
+
+            when(itemRepository.findActiveStockById(itemId)).thenReturn(Optional.of(new StockDto(10L, 2L)));
+
+            StockDto result = storeService.getStock(itemId);
+
+            assertThat(result.getQuantity()).isEqualTo(10L);
+            assertThat(result.getVersion()).isEqualTo(2L);
+        }
+
+        @Test
+        void getStock_whenItemDoesNotExist() {
+            UUID itemId = UUID.randomUUID();
+
+            when(itemRepository.findActiveStockById(itemId)).thenReturn(Optional.empty());
 
             assertThatExceptionOfType(ItemNotFoundException.class)
-                    .isThrownBy(() -> storeService.getStockQuantity(itemId));
+                    .isThrownBy(() -> storeService.getStock(itemId));
         }
 
     }
@@ -274,6 +427,28 @@ class StoreServiceTest {
         return createItemDto;
     }
 
+    private Item item(UUID itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setName("Item");
+        item.setPrice(new BigDecimal("10.00"));
+        item.setQuantity(10L);
+        return item;
+    }
+
+    private OrderLineDto orderLine(UUID itemId, long quantity) {
+        OrderLineDto orderLineDto = new OrderLineDto();
+        orderLineDto.setItemId(itemId);
+        orderLineDto.setQuantity(quantity);
+        return orderLineDto;
+    }
+
+    private CreateOrderDto createOrderDto(OrderLineDto... lines) {
+        CreateOrderDto createOrderDto = new CreateOrderDto();
+        createOrderDto.setLines(List.of(lines));
+        return createOrderDto;
+    }
+
     private ItemDto toItemDto (CreateItemDto createItemDto) {
         ItemDto itemDto = new ItemDto();
         itemDto.setId(UUID.randomUUID());
@@ -0,0 +1,48 @@
+package com.tasks.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void whenAdvancing_thenOnlyDueValuesShouldBeReturned() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 8, START);
+        wheel.schedule("soon", START.plusMillis(1500));
+        wheel.schedule("later", START.plusSeconds(5));
+
+        assertThat(wheel.advance(START.plusSeconds(1))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(2))).containsExactly("soon");
+        assertThat(wheel.advance(START.plusSeconds(4))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(5))).containsExactly("later");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void whenDeadlineIsMoreThanATurnAhead_thenItShouldWaitForItsTurn() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 4, START);
+        wheel.schedule("next turn", START.plusSeconds(6));
+
+        assertThat(wheel.advance(START.plusSeconds(3))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(5))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(6))).containsExactly("next turn");
+    }
+
+    @Test
+    void whenAdvancingAfterALongPause_thenAllOverdueValuesShouldBeReturned() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 4, START);
+        wheel.schedule("first", START.plusSeconds(1));
+        wheel.schedule("second", START.plusSeconds(7));
+        wheel.schedule("past", START.minusSeconds(30));
+
+        assertThat(wheel.advance(START.plusSeconds(60))).containsExactlyInAnyOrder("first", "second", "past");
+        assertThat(wheel.size()).isZero();
+    }
+
+}
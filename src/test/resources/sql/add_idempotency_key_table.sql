@@ -0,0 +1,10 @@
+CREATE TABLE store_schema.idempotency_key
+(
+    id VARCHAR(255) PRIMARY KEY,
+    request_hash CHAR(64) NOT NULL,
+    response TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_expires_at ON store_schema.idempotency_key (expires_at);
\ No newline at end of file
@@ -0,0 +1,19 @@
+CREATE TABLE store_schema.item_sales_total
+(
+    item_id UUID PRIMARY KEY,
+    units_sold BIGINT NOT NULL,
+    revenue DECIMAL(19,2) NOT NULL,
+    sale_count BIGINT NOT NULL,
+    FOREIGN KEY (item_id) REFERENCES store_schema.item(id)
+);
+
+CREATE INDEX idx_item_sales_total_units ON store_schema.item_sales_total (units_sold DESC, item_id);
+
+CREATE TABLE store_schema.item_sales_archived_total
+(
+    item_id UUID PRIMARY KEY,
+    units_sold BIGINT NOT NULL,
+    revenue DECIMAL(19,2) NOT NULL,
+    sale_count BIGINT NOT NULL,
+    FOREIGN KEY (item_id) REFERENCES store_schema.item(id)
+);
\ No newline at end of file
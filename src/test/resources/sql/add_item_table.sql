@@ -4,5 +4,14 @@ CREATE TABLE store_schema.item
     name TEXT NOT NULL UNIQUE,
     price DECIMAL(10,2) NOT NULL,
     quantity INTEGER NOT NULL,
-    is_deleted BOOLEAN NOT NULL DEFAULT FALSE
-);
\ No newline at end of file
+    is_deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_item_active_id ON store_schema.item (id) WHERE is_deleted = false;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_item_name_trgm ON store_schema.item USING gin (lower(name) gin_trgm_ops) WHERE is_deleted = false;
+
+CREATE INDEX idx_item_name_prefix ON store_schema.item (lower(name) COLLATE "C", id) WHERE is_deleted = false;
\ No newline at end of file
@@ -0,0 +1,13 @@
+CREATE TABLE store_schema.sale_rollup
+(
+    granularity VARCHAR(8) NOT NULL,
+    item_id UUID NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    units_sold BIGINT NOT NULL,
+    revenue DECIMAL(19,2) NOT NULL,
+    sale_count BIGINT NOT NULL,
+    PRIMARY KEY (granularity, item_id, bucket_start)
+);
+
+CREATE INDEX idx_sale_rollup_bucket ON store_schema.sale_rollup (granularity, bucket_start)
+    INCLUDE (units_sold, revenue, sale_count);
\ No newline at end of file
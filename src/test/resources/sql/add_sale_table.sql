@@ -1,7 +1,18 @@
 CREATE TABLE store_schema.sale
 (
-    id UUID PRIMARY KEY,
+    id UUID NOT NULL,
     item_id UUID NOT NULL,
     quantity_sold INTEGER NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    rolled_up BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id, created_at),
     FOREIGN KEY (item_id) REFERENCES store_schema.item(id)
-);
\ No newline at end of file
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_sale_item_created_at ON store_schema.sale (item_id, created_at DESC, id DESC) INCLUDE (quantity_sold);
+
+CREATE INDEX idx_sale_not_rolled_up ON store_schema.sale (created_at) WHERE rolled_up = false;
+
+-- Monthly partitions depend on the current date and are created by the tests that need them
+CREATE TABLE store_schema.sale_default PARTITION OF store_schema.sale DEFAULT;
@@ -0,0 +1,12 @@
+CREATE TABLE store_schema.stock_event
+(
+    id BIGSERIAL PRIMARY KEY,
+    item_id UUID NOT NULL,
+    quantity INTEGER NOT NULL,
+    version BIGINT NOT NULL,
+    deleted BOOLEAN NOT NULL,
+    tx_id BIGINT NOT NULL DEFAULT pg_current_xact_id()::text::bigint,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_stock_event_tx_id ON store_schema.stock_event (tx_id, id);
\ No newline at end of file
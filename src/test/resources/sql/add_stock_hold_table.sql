@@ -0,0 +1,12 @@
+CREATE TABLE store_schema.stock_hold
+(
+    id UUID PRIMARY KEY,
+    item_id UUID NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    FOREIGN KEY (item_id) REFERENCES store_schema.item(id)
+);
+
+CREATE INDEX idx_stock_hold_expires_at ON store_schema.stock_hold (expires_at);
\ No newline at end of file